@@ -12,7 +12,17 @@ export const startQueue = async () => {
 	const connection = await amqplib.connect(rabbitmqUrl);
 	const channel = await connection.createChannel();
 
-	await channel.assertQueue(queueName, { durable: true });
+	// must match the user-service (RabbitMQConfig.pushQueue) and api-gateway declarations,
+	// otherwise whoever declares second fails with PRECONDITION_FAILED
+	await channel.assertQueue(queueName, {
+		durable: true,
+		arguments: {
+			"x-message-ttl": 3600000,
+			"x-dead-letter-exchange": "notifications.direct",
+			"x-dead-letter-routing-key": "failed",
+			"x-max-priority": 10,
+		},
+	});
 	await channel.prefetch(parseInt(process.env.RABBITMQ_PREFETCH || "10"));
 
 	console.log(`Connected to RabbitMQ. Listening to queue - ${queueName}`);
@@ -8,7 +8,16 @@ async function sendTestMessage() {
     const channel = await connection.createChannel();
     const queueName = "push.queue";
 
-    await channel.assertQueue(queueName, { durable: true });
+    // same arguments as the service declarations, see src/queue.ts
+    await channel.assertQueue(queueName, {
+      durable: true,
+      arguments: {
+        "x-message-ttl": 3600000,
+        "x-dead-letter-exchange": "notifications.direct",
+        "x-dead-letter-routing-key": "failed",
+        "x-max-priority": 10,
+      },
+    });
     console.log(`Connected to queue: ${queueName}`);
 
     const notification_id = `notif_${Date.now()}_${uuidv4().slice(0, 8)}`;
@@ -13,31 +13,139 @@
 
 package com.example.demo.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.connection.CorrelationData.Confirm;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Component
 public class NotificationPublisher {
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    // versioned envelope, values follow contracts/message_schemas/<schema>.json
+    public static final String MESSAGE_SCHEMA_HEADER = "message_schema";
+    public static final String SCHEMA_VERSION_HEADER = "schema_version";
+
+    private final PublisherPool pool;
+
+    // bounds the number of messages sent but not yet confirmed by the broker
+    private final Semaphore inFlight;
+    private final long confirmTimeoutMs;
 
-    public NotificationPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
-        this.rabbitTemplate = rabbitTemplate;
-        this.objectMapper = objectMapper;
+    public NotificationPublisher(PublisherPool pool,
+                                 @Value("${notification.publisher.max-in-flight:1000}") int maxInFlight,
+                                 @Value("${notification.publisher.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.pool = pool;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.confirmTimeoutMs = confirmTimeoutMs;
     }
 
-    public void publish(String exchange, String routingKey, Object message) {
+    /**
+     * Sends all messages over one channel and then waits on a single confirm barrier for the
+     * whole batch instead of one round trip per message. Results are positional; if the channel
+     * fails midway, the messages that were not sent are reported as NOT_SENT.
+     */
+    public List<PublishResult> publishBatch(List<OutboundMessage> messages) {
+        List<CorrelationData> correlations = new ArrayList<>(messages.size());
+        String sendError = null;
+        try {
+            pool.execute(template -> template.invoke(ops -> {
+                for (OutboundMessage m : messages) {
+                    acquireWindow();
+                    CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+                    try {
+                        ops.send(m.exchange(), m.routingKey(), toMessage(m), correlation);
+                    } catch (RuntimeException e) {
+                        inFlight.release();
+                        throw e;
+                    }
+                    // a confirm that never arrives (e.g. channel closed) must not keep the permit
+                    correlation.getFuture()
+                            .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                            .whenComplete((confirm, ex) -> inFlight.release());
+                    correlations.add(correlation);
+                }
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            if (correlations.isEmpty()) throw e;
+            sendError = e.getMessage();
+            System.err.println("Batch publish interrupted after " + correlations.size() + " messages: " + sendError);
+        }
+
+        // single barrier: all confirms of the batch or the timeout, whichever comes first
+        CompletableFuture<?>[] futures = correlations.stream().map(CorrelationData::getFuture).toArray(CompletableFuture[]::new);
         try {
-            String json = objectMapper.writeValueAsString(message);
-            rabbitTemplate.convertAndSend(exchange, routingKey, json);
-            System.out.println("Message published to RabbitMQ: " + json);
-        } catch (Exception e) {
-            System.err.println("Failed to publish message: " + e.getMessage());
-            throw new RuntimeException(e);
+            CompletableFuture.allOf(futures).get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+            // outcome is read per message below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+
+        List<PublishResult> results = new ArrayList<>(messages.size());
+        for (CorrelationData correlation : correlations) {
+            results.add(toResult(correlation));
+        }
+        while (results.size() < messages.size()) {
+            results.add(PublishResult.notSent(sendError));
+        }
+        return results;
     }
-}
 
+    private Message toMessage(OutboundMessage m) {
+        return toMessage(m.payload(), m.priority(), m.schema());
+    }
 
+    // the outbox payload is already the JSON body: straight to UTF-8 bytes, no MessageConverter pass
+    private Message toMessage(String json, int priority, String schema) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        props.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        props.setPriority(priority);
+        if (schema != null) {
+            props.setHeader(MESSAGE_SCHEMA_HEADER, schema);
+            props.setHeader(SCHEMA_VERSION_HEADER, schema.substring(schema.lastIndexOf('_') + 1));
+        }
+        return new Message(json.getBytes(StandardCharsets.UTF_8), props);
+    }
+
+    private PublishResult toResult(CorrelationData correlation) {
+        CompletableFuture<Confirm> future = correlation.getFuture();
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return PublishResult.rejected("confirm_timeout");
+        }
+        Confirm confirm = future.join();
+        if (!confirm.isAck()) {
+            return PublishResult.rejected("broker_nack: " + confirm.getReason());
+        }
+        if (correlation.getReturned() != null) {
+            return PublishResult.rejected("unroutable: " + correlation.getReturned().getReplyText());
+        }
+        return PublishResult.confirmed();
+    }
+
+    private void acquireWindow() {
+        try {
+            if (!inFlight.tryAcquire(confirmTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new AmqpException("publisher in-flight window full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("interrupted while waiting for publisher window");
+        }
+    }
+}
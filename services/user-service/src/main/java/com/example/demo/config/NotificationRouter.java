@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.NotificationType;
+import org.springframework.amqp.core.Binding;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// resolves notification_type to exchange/routing key and priority to a queue priority; the table is built once from the declared bindings
+@Component
+public class NotificationRouter {
+
+    public record Route(String exchange, String routingKey, String schema) {
+    }
+
+    // notification_type -> queue it must end up in
+    private static final Map<NotificationType, String> QUEUE_BY_TYPE = Map.of(
+            NotificationType.EMAIL, RabbitMQConfig.EMAIL_QUEUE,
+            NotificationType.PUSH, RabbitMQConfig.PUSH_QUEUE
+    );
+
+    // message contract of the job the relay publishes (contracts/message_schemas/<schema>.json); the
+    // workers resolve user and template themselves, so email_message_v1/push_message_v1 do not apply
+    public static final String JOB_SCHEMA = "notification_job_v1";
+
+    private final Map<NotificationType, Route> routes;
+
+    public NotificationRouter(List<Binding> bindings) {
+        Map<String, Binding> byQueue = new HashMap<>();
+        for (Binding binding : bindings) {
+            if (binding.isDestinationQueue()) {
+                byQueue.put(binding.getDestination(), binding);
+            }
+        }
+
+        Map<NotificationType, Route> table = new EnumMap<>(NotificationType.class);
+        QUEUE_BY_TYPE.forEach((type, queue) -> {
+            Binding binding = byQueue.get(queue);
+            if (binding == null) {
+                throw new IllegalStateException("No binding declared for queue " + queue);
+            }
+            table.put(type, new Route(binding.getExchange(), binding.getRoutingKey(), JOB_SCHEMA));
+        });
+        this.routes = table;
+    }
+
+    // message priority for the channel queues, clamped to what they were declared with
+    public int priority(Integer requested) {
+        if (requested == null) return RabbitMQConfig.DEFAULT_PRIORITY;
+        return Math.max(0, Math.min(RabbitMQConfig.MAX_PRIORITY, requested));
+    }
+
+    // null when the notification type is unknown (null) or has no queue
+    public Route route(NotificationType notificationType) {
+        if (notificationType == null) return null;
+        return routes.get(notificationType);
+    }
+}
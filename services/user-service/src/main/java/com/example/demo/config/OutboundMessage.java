@@ -0,0 +1,5 @@
+package com.example.demo.config;
+
+// a serialized message and where it goes, as handed to NotificationPublisher.publishBatch
+public record OutboundMessage(String exchange, String routingKey, String payload, int priority, String schema) {
+}
@@ -0,0 +1,71 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Virtual-thread mode only: streams the JFR jdk.VirtualThreadPinned event, i.e. a virtual thread
+ * that blocked while holding a monitor (synchronized) or inside native code and so kept its carrier
+ * thread busy. Each occurrence is counted in jvm.threads.virtual.pinned and logged with the top frames,
+ * which points at the synchronized block to replace with a ReentrantLock.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class PinnedThreadMonitor {
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Counter pinned;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public PinnedThreadMonitor(MeterRegistry meterRegistry,
+                               @Value("${notification.virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        this.pinned = meterRegistry.counter("jvm.threads.virtual.pinned");
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            stream = new RecordingStream();
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+            stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+            stream.startAsync();
+        } catch (RuntimeException e) {
+            System.err.println("JFR unavailable, virtual thread pinning is not monitored: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        StringBuilder sb = new StringBuilder("virtual thread pinned for ")
+                .append(event.getDuration().toMillis()).append(" ms");
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(LOGGED_FRAMES, frames.size()); i++) {
+                RecordedFrame f = frames.get(i);
+                sb.append("\n    at ").append(f.getMethod().getType().getName()).append('.')
+                        .append(f.getMethod().getName()).append(':').append(f.getLineNumber());
+            }
+        }
+        System.err.println(sb);
+    }
+}
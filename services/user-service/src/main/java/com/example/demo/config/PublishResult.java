@@ -0,0 +1,22 @@
+package com.example.demo.config;
+
+public record PublishResult(Status status, String error) {
+
+    public enum Status {
+        CONFIRMED, // broker acked the message
+        REJECTED,  // nack, unroutable return or confirm timeout
+        NOT_SENT   // the send itself failed (e.g. broker down), safe to retry
+    }
+
+    public static PublishResult confirmed() {
+        return new PublishResult(Status.CONFIRMED, null);
+    }
+
+    public static PublishResult rejected(String error) {
+        return new PublishResult(Status.REJECTED, error);
+    }
+
+    public static PublishResult notSent(String error) {
+        return new PublishResult(Status.NOT_SENT, error);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Spreads publishing over several AMQP connections. Every shard is a connection factory of its own,
+ * built from the client settings of the Spring Boot one, which is left untouched for other users.
+ * Each shard keeps a large channel cache so channels stay open instead of being churned per send.
+ * Shards are picked round robin per call.
+ */
+@Component
+public class PublisherPool implements DisposableBean {
+
+    private final List<CachingConnectionFactory> factories = new ArrayList<>();
+    private final List<RabbitTemplate> templates = new ArrayList<>();
+    private final List<Counter> sends = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    public PublisherPool(CachingConnectionFactory connectionFactory,
+                         MeterRegistry meterRegistry,
+                         @Value("${notification.publisher.connections:4}") int connections,
+                         @Value("${notification.publisher.channel-cache-size:32}") int channelCacheSize) {
+        for (int shard = 0; shard < Math.max(1, connections); shard++) {
+            CachingConnectionFactory factory = new CachingConnectionFactory(connectionFactory.getRabbitConnectionFactory());
+            factory.setChannelCacheSize(channelCacheSize);
+            factory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+            factory.setPublisherReturns(true);
+            String connectionName = "publisher-" + shard;
+            factory.setConnectionNameStrategy(f -> connectionName);
+
+            RabbitTemplate template = new RabbitTemplate(factory);
+            template.setMandatory(true);
+
+            factories.add(factory);
+            templates.add(template);
+            sends.add(Counter.builder("notification.publisher.pool.sends")
+                    .description("Publish calls routed to this connection")
+                    .tag("shard", String.valueOf(shard))
+                    .register(meterRegistry));
+        }
+
+        Gauge.builder("notification.publisher.pool.connections", factories, List::size)
+                .description("Publisher connections in the pool")
+                .register(meterRegistry);
+        Gauge.builder("notification.publisher.pool.active", active, AtomicInteger::get)
+                .description("Publish operations currently holding a pooled channel")
+                .register(meterRegistry);
+    }
+
+    // runs one logical operation (a send, a batch) on the next shard
+    public <T> T execute(Function<RabbitTemplate, T> action) {
+        int shard = Math.floorMod(next.getAndIncrement(), templates.size());
+        sends.get(shard).increment();
+        active.incrementAndGet();
+        try {
+            return action.apply(templates.get(shard));
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    @Override
+    public void destroy() {
+        for (CachingConnectionFactory factory : factories) {
+            factory.destroy();
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.example.demo.config;
 
+import com.example.demo.entity.NotificationStatus;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.amqp.core.Queue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 
 @Configuration
@@ -15,33 +26,116 @@ public class RabbitMQConfig {
     public static final String EXCHANGE = "notifications.direct";
     public static final String EMAIL_QUEUE = "email.queue";
     public static final String PUSH_QUEUE = "push.queue";
+    public static final String STATUS_QUEUE = "status.queue";
+    public static final String FAILED_QUEUE = "failed.queue";
+
+    // routing keys the email/push workers bind with
+    public static final String EMAIL_ROUTING_KEY = "email";
+    public static final String PUSH_ROUTING_KEY = "push";
+    public static final String FAILED_ROUTING_KEY = "failed";
+    // delivery receipts published by the workers
+    public static final String STATUS_ROUTING_KEY = "status";
+
+    // channel queues are priority queues: transactional traffic overtakes bulk sends already queued
+    public static final int MAX_PRIORITY = 10;
+    public static final int DEFAULT_PRIORITY = 5;
 
     @Bean
     public DirectExchange notificationExchange() {
         return new DirectExchange(EXCHANGE);
     }
 
+    // arguments must match the email worker's declaration of email.queue
     @Bean
     public Queue emailQueue() {
-        return new Queue(EMAIL_QUEUE, true);
+        return QueueBuilder.durable(EMAIL_QUEUE)
+                .ttl(3600000)
+                .deadLetterExchange(EXCHANGE)
+                .deadLetterRoutingKey(FAILED_ROUTING_KEY)
+                .maxPriority(MAX_PRIORITY)
+                .build();
     }
 
+    // same arguments as email.queue, as declared by the api-gateway (rabbitmq.service.ts)
     @Bean
     public Queue pushQueue() {
-        return new Queue(PUSH_QUEUE, true);
+        return QueueBuilder.durable(PUSH_QUEUE)
+                .ttl(3600000)
+                .deadLetterExchange(EXCHANGE)
+                .deadLetterRoutingKey(FAILED_ROUTING_KEY)
+                .maxPriority(MAX_PRIORITY)
+                .build();
     }
 
     @Bean
     public Binding emailBinding() {
         return BindingBuilder.bind(emailQueue())
                 .to(notificationExchange())
-                .with(EMAIL_QUEUE);
+                .with(EMAIL_ROUTING_KEY);
     }
 
     @Bean
     public Binding pushBinding() {
         return BindingBuilder.bind(pushQueue())
                 .to(notificationExchange())
-                .with(PUSH_QUEUE);
+                .with(PUSH_ROUTING_KEY);
+    }
+
+    // dead letters of email.queue/push.queue and poison status receipts; arguments as in the
+    // api-gateway (rabbitmq.service.ts) and email worker declarations
+    @Bean
+    public Queue failedQueue() {
+        return QueueBuilder.durable(FAILED_QUEUE)
+                .ttl(86400000)
+                .maxLength(10000)
+                .build();
+    }
+
+    @Bean
+    public Binding failedBinding() {
+        return BindingBuilder.bind(failedQueue())
+                .to(notificationExchange())
+                .with(FAILED_ROUTING_KEY);
+    }
+
+    @Bean
+    public Queue statusQueue() {
+        return QueueBuilder.durable(STATUS_QUEUE).build();
+    }
+
+    // the email worker publishes each receipt as status.<status> (queue_service.publish_status_update),
+    // so status.queue is bound with every one of those keys next to the plain "status"
+    @Bean
+    public Declarables statusBindings() {
+        List<Declarable> bindings = new ArrayList<>();
+        bindings.add(BindingBuilder.bind(statusQueue()).to(notificationExchange()).with(STATUS_ROUTING_KEY));
+        for (NotificationStatus status : NotificationStatus.values()) {
+            bindings.add(BindingBuilder.bind(statusQueue()).to(notificationExchange()).with(statusRoutingKey(status)));
+        }
+        return new Declarables(bindings);
+    }
+
+    public static String statusRoutingKey(NotificationStatus status) {
+        return STATUS_ROUTING_KEY + "." + status.getValue();
+    }
+
+    // consumer-side batching with manual acks: NotificationStatusListener acks a batch after applying it
+    @Bean
+    public SimpleRabbitListenerContainerFactory statusListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${notification.status-listener.batch-size:500}") int batchSize,
+            @Value("${notification.status-listener.receive-timeout-ms:100}") long receiveTimeoutMs,
+            @Value("${notification.status-listener.prefetch:1000}") int prefetch,
+            @Value("${notification.status-listener.consumers:1}") int consumers) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        factory.setConcurrentConsumers(consumers);
+        return factory;
     }
 }
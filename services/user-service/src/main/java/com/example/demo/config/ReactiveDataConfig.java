@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+// R2DBC access for the reactive ingestion path. Built here instead of by Boot's R2DBC auto-configuration
+// (excluded in application.properties) so the blocking profile needs no R2DBC url and JPA keeps the only
+// transaction manager. The pool is deliberately not a bean: an R2DBC ConnectionFactory bean makes Boot's
+// DataSource auto-configuration back off, which would take JPA down with it.
+@Configuration
+@Profile("reactive")
+public class ReactiveDataConfig {
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient databaseClient(@Value("${notification.reactive.r2dbc-url}") String url,
+                                         @Value("${spring.datasource.username}") String username,
+                                         @Value("${spring.datasource.password}") String password,
+                                         @Value("${notification.reactive.pool-max-size:20}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(maxSize)
+                .build());
+        return DatabaseClient.create(pool);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (pool != null) pool.dispose();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.NotificationRequestDTO;
+import com.example.demo.dto.NotificationStatusRequestDTO;
+import com.example.demo.service.AdmissionController;
+import com.example.demo.service.NotificationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// bulk endpoints, served in both the blocking and the reactive profile
+@RestController
+@RequestMapping("/api/v1")
+public class NotificationBatchController {
+    private final NotificationService notificationService;
+    private final AdmissionController admissionController;
+    private final int maxBatchSize;
+
+    public NotificationBatchController(NotificationService notificationService,
+                                       AdmissionController admissionController,
+                                       @Value("${notification.batch.max-size:1000}") int maxBatchSize) {
+        this.notificationService = notificationService;
+        this.admissionController = admissionController;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostMapping("/notifications/batch")
+    public ResponseEntity<ApiResponse<List<Map<String,Object>>>> createBatch(@RequestBody @Valid List<NotificationRequestDTO> requests) {
+        if (requests.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, null, "batch_too_large", "max " + maxBatchSize + " notifications per batch", null));
+        }
+        try (AdmissionController.Admission admission = admissionController.admit()) {
+            if (!admission.isAdmitted()) {
+                return admission.toResponse();
+            }
+            List<Map<String,Object>> results = notificationService.createNotifications(requests);
+            return ResponseEntity.ok(new ApiResponse<>(true, results, null, "batch_processed", null));
+        }
+    }
+
+    // status callbacks in bulk: one set-based UPDATE, per-id results
+    @PostMapping("/notifications/status:batch")
+    public ResponseEntity<ApiResponse<List<Map<String,Object>>>> statusBatch(@RequestBody List<NotificationStatusRequestDTO> requests) {
+        if (requests.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(false, null, "batch_too_large", "max " + maxBatchSize + " status updates per batch", null));
+        }
+        List<Map<String,Object>> results = notificationService.updateStatuses(requests);
+        return ResponseEntity.ok(new ApiResponse<>(true, results, null, "batch_processed", null));
+    }
+}
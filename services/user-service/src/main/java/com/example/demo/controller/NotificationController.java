@@ -3,8 +3,10 @@ package com.example.demo.controller;
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.NotificationRequestDTO;
 import com.example.demo.dto.NotificationStatusRequestDTO;
+import com.example.demo.service.AdmissionController;
 import com.example.demo.service.NotificationService;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,19 +14,29 @@ import org.springframework.web.bind.annotation.*;
 import java.util.Map;
 import java.util.UUID;
 
+// blocking create/status endpoints; the "reactive" profile swaps in ReactiveNotificationController
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1")
 public class NotificationController {
     private final NotificationService notificationService;
+    private final AdmissionController admissionController;
 
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService,
+                                  AdmissionController admissionController) {
         this.notificationService = notificationService;
+        this.admissionController = admissionController;
     }
 
     @PostMapping("/notifications")
     public ResponseEntity<ApiResponse<Map<String,Object>>> create(@RequestBody @Valid NotificationRequestDTO req) {
-        ApiResponse<Map<String,Object>> resp = notificationService.createNotification(req);
-        return ResponseEntity.status(resp.isSuccess()? HttpStatus.OK:HttpStatus.BAD_REQUEST).body(resp);
+        try (AdmissionController.Admission admission = admissionController.admit()) {
+            if (!admission.isAdmitted()) {
+                return admission.toResponse();
+            }
+            ApiResponse<Map<String,Object>> resp = notificationService.createNotification(req);
+            return ResponseEntity.status(resp.isSuccess()? HttpStatus.OK:HttpStatus.BAD_REQUEST).body(resp);
+        }
     }
 
     @PostMapping("/notifications/{notification_id}/status")
@@ -0,0 +1,51 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.NotificationRequestDTO;
+import com.example.demo.dto.NotificationStatusRequestDTO;
+import com.example.demo.service.AdmissionController;
+import com.example.demo.service.ReactiveNotificationService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+// "reactive" profile: same endpoints as NotificationController, handled asynchronously so the
+// request thread is released while Postgres works
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1")
+public class ReactiveNotificationController {
+    private final ReactiveNotificationService notificationService;
+    private final AdmissionController admissionController;
+
+    public ReactiveNotificationController(ReactiveNotificationService notificationService,
+                                          AdmissionController admissionController) {
+        this.notificationService = notificationService;
+        this.admissionController = admissionController;
+    }
+
+    @PostMapping("/notifications")
+    public Mono<ResponseEntity<ApiResponse<Map<String,Object>>>> create(@RequestBody @Valid NotificationRequestDTO req) {
+        AdmissionController.Admission admission = admissionController.admit();
+        if (!admission.isAdmitted()) {
+            return Mono.just(admission.toResponse());
+        }
+        return notificationService.createNotification(req)
+                .map(resp -> ResponseEntity.status(resp.isSuccess()? HttpStatus.OK:HttpStatus.BAD_REQUEST).body(resp))
+                .doFinally(signal -> admission.close());
+    }
+
+    @PostMapping("/notifications/{notification_id}/status")
+    public Mono<ResponseEntity<ApiResponse<Void>>> statusUpdate(
+            @PathVariable("notification_id") UUID notificationId,
+            @RequestBody NotificationStatusRequestDTO req) {
+        req.setNotification_id(notificationId.toString());
+        return notificationService.updateStatus(req).map(ResponseEntity::ok);
+    }
+}
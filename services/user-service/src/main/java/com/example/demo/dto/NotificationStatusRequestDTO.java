@@ -1,8 +1,12 @@
 package com.example.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// the workers send more than this (the email worker adds metadata); only these fields are read
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class NotificationStatusRequestDTO {
     private String notification_id;
-    private String status; // delivered | pending | failed
+    private String status; // pending | sending | sent | delivered | failed | bounced
     private String error;  // optional
     private String timestamp; // optional
     // getters/setters
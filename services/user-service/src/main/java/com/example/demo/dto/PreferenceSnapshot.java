@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.util.UUID;
+
+// what the send path needs to know about a recipient: channel preferences and contact fields
+// (built by the projection queries in UserRepository)
+public record PreferenceSnapshot(UUID userId, String email, String pushToken,
+                                 boolean emailEnabled, boolean pushEnabled, String language) {
+}
@@ -1,6 +1,8 @@
 package com.example.demo.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -9,30 +11,36 @@ import java.util.UUID;
 @Table(name="notifications")
 public class NotificationEntity {
     @Id
-    @GeneratedValue
+    @UuidV7
     private UUID notificationId;
 
     @Column(unique=true)
     private String requestId;
 
     private UUID userId;
-    private String notificationType;
+    @Column(columnDefinition = "smallint")
+    @Convert(converter = NotificationTypeConverter.class)
+    private NotificationType notificationType;
     private String templateCode;
 
     @Column(columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
     private String variables; // store JSON as string or use Jackson + @Convert
 
-    private String status;
+    @Column(columnDefinition = "smallint")
+    @Convert(converter = NotificationStatusConverter.class)
+    private NotificationStatus status;
     private Integer attempts;
     private String lastError;
 
     @Column(columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
     private String metadata;
 
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
 
-    public NotificationEntity(UUID notificationId, String requestId, UUID userId, String notificationType, String templateCode, String variables, String status, Integer attempts, String lastError, String metadata, OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+    public NotificationEntity(UUID notificationId, String requestId, UUID userId, NotificationType notificationType, String templateCode, String variables, NotificationStatus status, Integer attempts, String lastError, String metadata, OffsetDateTime createdAt, OffsetDateTime updatedAt) {
         this.notificationId = notificationId;
         this.requestId = requestId;
         this.userId = userId;
@@ -74,11 +82,11 @@ public class NotificationEntity {
         this.userId = userId;
     }
 
-    public String getNotificationType() {
+    public NotificationType getNotificationType() {
         return notificationType;
     }
 
-    public void setNotificationType(String notificationType) {
+    public void setNotificationType(NotificationType notificationType) {
         this.notificationType = notificationType;
     }
 
@@ -98,11 +106,11 @@ public class NotificationEntity {
         this.variables = variables;
     }
 
-    public String getStatus() {
+    public NotificationStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(NotificationStatus status) {
         this.status = status;
     }
 
@@ -0,0 +1,67 @@
+package com.example.demo.entity;
+
+/**
+ * Lifecycle of a notification, stored as its smallint code (see NotificationStatusConverter). The
+ * values are the ones the workers report (email-service EmailStatus) plus queued for rows not yet
+ * picked up. The rank is the stage a delivery has reached: queued < pending < sending < sent <
+ * outcome, where failed, delivered and bounced are the outcomes. Transitions only move to a later
+ * stage, except that a failed notification may be retried; delivered and bounced are final.
+ */
+public enum NotificationStatus {
+    // codes are persisted, never renumber them
+    QUEUED((short) 0, "queued", 0),
+    PENDING((short) 1, "pending", 1),
+    SENDING((short) 2, "sending", 2),
+    SENT((short) 5, "sent", 3),
+    FAILED((short) 3, "failed", 4),
+    DELIVERED((short) 4, "delivered", 4),
+    BOUNCED((short) 6, "bounced", 4);
+
+    private final short code;
+    private final String value;
+    private final int rank;
+
+    NotificationStatus(short code, String value, int rank) {
+        this.code = code;
+        this.value = value;
+        this.rank = rank;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public boolean isFinal() {
+        return this == DELIVERED || this == BOUNCED;
+    }
+
+    public boolean canTransitionTo(NotificationStatus next) {
+        if (isFinal()) return false;
+        if (this == FAILED) return next != QUEUED; // retry: pending/sending again, or another outcome
+        return next.rank > rank;
+    }
+
+    // case-insensitive lookup of the wire value, null when unknown
+    public static NotificationStatus fromValue(String value) {
+        if (value == null) return null;
+        for (NotificationStatus s : values()) {
+            if (s.value.equalsIgnoreCase(value)) return s;
+        }
+        return null;
+    }
+
+    public static NotificationStatus fromCode(short code) {
+        for (NotificationStatus s : values()) {
+            if (s.code == code) return s;
+        }
+        throw new IllegalArgumentException("Unknown notification status code: " + code);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class NotificationStatusConverter implements AttributeConverter<NotificationStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(NotificationStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public NotificationStatus convertToEntityAttribute(Short code) {
+        return code == null ? null : NotificationStatus.fromCode(code);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.entity;
+
+/**
+ * Delivery channel of a notification, stored as its smallint code (see NotificationTypeConverter).
+ * The value is the notification_type used on the API and in outbound messages.
+ */
+public enum NotificationType {
+    // codes are persisted, never renumber them
+    EMAIL((short) 1, "email"),
+    PUSH((short) 2, "push");
+
+    private final short code;
+    private final String value;
+
+    NotificationType(short code, String value) {
+        this.code = code;
+        this.value = value;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    // case-insensitive lookup of the wire value, null when unknown
+    public static NotificationType fromValue(String value) {
+        if (value == null) return null;
+        for (NotificationType t : values()) {
+            if (t.value.equalsIgnoreCase(value)) return t;
+        }
+        return null;
+    }
+
+    public static NotificationType fromCode(short code) {
+        for (NotificationType t : values()) {
+            if (t.code == code) return t;
+        }
+        throw new IllegalArgumentException("Unknown notification type code: " + code);
+    }
+}
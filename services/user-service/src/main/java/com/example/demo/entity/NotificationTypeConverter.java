@@ -0,0 +1,18 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class NotificationTypeConverter implements AttributeConverter<NotificationType, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(NotificationType type) {
+        return type == null ? null : type.getCode();
+    }
+
+    @Override
+    public NotificationType convertToEntityAttribute(Short code) {
+        return code == null ? null : NotificationType.fromCode(code);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "notification_outbox", indexes = @Index(name = "idx_notification_outbox_drain_order", columnList = "priority DESC, created_at"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID notificationId;
+
+    @Column(nullable = false)
+    private String exchange;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    private Integer priority;
+
+    private String messageSchema; // e.g. notification_job_v1
+
+    @Column(columnDefinition = "jsonb", nullable = false)
+    @JdbcTypeCode(SqlTypes.JSON)
+    private String payload; // message body, already serialized
+
+    private OffsetDateTime createdAt;
+
+    public OutboxEvent(UUID notificationId, String exchange, String routingKey, Integer priority, String messageSchema, String payload, OffsetDateTime createdAt) {
+        this.notificationId = notificationId;
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.priority = priority;
+        this.messageSchema = messageSchema;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public OutboxEvent() {
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(UUID notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public void setExchange(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    public void setRoutingKey(String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public String getMessageSchema() {
+        return messageSchema;
+    }
+
+    public void setMessageSchema(String messageSchema) {
+        this.messageSchema = messageSchema;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(OffsetDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
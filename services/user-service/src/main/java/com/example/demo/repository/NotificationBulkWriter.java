@@ -0,0 +1,143 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.UuidV7Generator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk ingest over COPY: rows are streamed as CSV into a transaction-scoped staging table, then moved
+ * into notifications (ON CONFLICT (request_id) DO NOTHING) and notification_outbox by one statement.
+ * Meant for large batches and backfills, where one INSERT per entity is the bottleneck.
+ */
+@Repository
+public class NotificationBulkWriter {
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE IF NOT EXISTS notification_copy (
+                notification_id uuid, request_id varchar(255), user_id uuid, notification_type smallint,
+                template_code varchar(255), variables jsonb, status smallint, attempts int, metadata jsonb,
+                created_at timestamptz, outbox_id uuid, exchange varchar(255), routing_key varchar(255),
+                priority int, message_schema varchar(255), payload jsonb
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY = """
+            COPY notification_copy (notification_id, request_id, user_id, notification_type, template_code, variables,
+                                    status, attempts, metadata, created_at, outbox_id, exchange, routing_key, priority,
+                                    message_schema, payload)
+            FROM STDIN (FORMAT csv)
+            """;
+
+    // outbox rows only for staged rows that carry one and were actually inserted
+    private static final String MOVE = """
+            WITH inserted AS (
+                INSERT INTO notifications (notification_id, request_id, user_id, notification_type, template_code,
+                                           variables, status, attempts, metadata, created_at, updated_at)
+                SELECT notification_id, request_id, user_id, notification_type, template_code,
+                       variables, status, attempts, metadata, created_at, created_at
+                FROM notification_copy
+                ON CONFLICT (request_id) DO NOTHING
+                RETURNING notification_id
+            ), outbox AS (
+                INSERT INTO notification_outbox (id, notification_id, exchange, routing_key, priority, message_schema, payload, created_at)
+                SELECT c.outbox_id, c.notification_id, c.exchange, c.routing_key, c.priority, c.message_schema, c.payload, c.created_at
+                FROM notification_copy c JOIN inserted USING (notification_id)
+                WHERE c.outbox_id IS NOT NULL
+            )
+            SELECT notification_id FROM inserted
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Writes the notifications and, when {@code events} is not null, their positionally paired outbox
+     * events. Notifications need their id set. Returns the ids that were inserted; rows whose request_id
+     * already existed are skipped.
+     */
+    @Transactional
+    public Set<UUID> write(List<NotificationEntity> notifications, List<OutboxEvent> events) {
+        if (notifications.isEmpty()) return Set.of();
+        return jdbcTemplate.execute((ConnectionCallback<Set<UUID>>) con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute(CREATE_STAGING);
+                st.execute("TRUNCATE notification_copy");
+            }
+            copy(con, notifications, events);
+            Set<UUID> inserted = new HashSet<>(notifications.size() * 2);
+            try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(MOVE)) {
+                while (rs.next()) inserted.add(rs.getObject(1, UUID.class));
+            }
+            return inserted;
+        });
+    }
+
+    private void copy(Connection con, List<NotificationEntity> notifications, List<OutboxEvent> events) throws SQLException {
+        PGConnection pg = con.unwrap(PGConnection.class);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(pg, COPY, 1 << 16), StandardCharsets.UTF_8), 1 << 16)) {
+            for (int i = 0; i < notifications.size(); i++) {
+                NotificationEntity n = notifications.get(i);
+                OutboxEvent e = events == null ? null : events.get(i);
+                field(out, n.getNotificationId(), false);
+                field(out, n.getRequestId(), false);
+                field(out, n.getUserId(), false);
+                field(out, n.getNotificationType() == null ? null : n.getNotificationType().getCode(), false);
+                field(out, n.getTemplateCode(), false);
+                field(out, n.getVariables(), false);
+                field(out, (n.getStatus() == null ? NotificationStatus.QUEUED : n.getStatus()).getCode(), false);
+                field(out, n.getAttempts() == null ? 0 : n.getAttempts(), false);
+                field(out, n.getMetadata(), false);
+                field(out, n.getCreatedAt(), false);
+                field(out, e == null ? null : (e.getId() != null ? e.getId() : UuidV7Generator.next()), false);
+                field(out, e == null ? null : e.getExchange(), false);
+                field(out, e == null ? null : e.getRoutingKey(), false);
+                field(out, e == null ? null : e.getPriority(), false);
+                field(out, e == null ? null : e.getMessageSchema(), false);
+                field(out, e == null ? null : e.getPayload(), true);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("COPY into notification_copy failed", ex);
+        }
+    }
+
+    // CSV: NULL is an unquoted empty field, every value is quoted with embedded quotes doubled,
+    // so JSON (commas, quotes, newlines) goes through verbatim and jsonb parses it on the server
+    private static void field(Writer out, Object value, boolean last) throws IOException {
+        if (value != null) {
+            String s = value.toString();
+            out.write('"');
+            if (s.indexOf('"') < 0) {
+                out.write(s);
+            } else {
+                out.write(s.replace("\"", "\"\""));
+            }
+            out.write('"');
+        }
+        out.write(last ? '\n' : ',');
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.UuidV7Generator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+// plain JDBC statements for the write paths where JPA's one-statement-per-entity is the bottleneck
+@Repository
+public class NotificationJdbcRepository {
+
+    // notifications.last_error is varchar(255); longer worker errors are cut, not rejected
+    public static final int MAX_ERROR_LENGTH = 255;
+
+    // 14 bind parameters per row, keeps a full batch far below the 32767 parameter limit of the protocol
+    public static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final String ROW = "(?::uuid, ?, ?::uuid, ?::smallint, ?, ?::jsonb, ?::jsonb, ?::timestamptz, ?::uuid, ?, ?, ?::int, ?, ?::jsonb)";
+
+    // (from, to) status code pairs allowed by NotificationStatus#canTransitionTo, for guarding UPDATEs
+    public static final String ALLOWED_TRANSITIONS = allowedTransitions();
+
+    // one UPDATE for a list of status callbacks; the last update per notification wins. An update that
+    // folded in failed reports may also get there through failed (e.g. sending -> failed -> pending)
+    private static final String UPDATE_STATUSES = """
+            WITH input AS (
+                SELECT * FROM unnest(?::int[], ?::uuid[], ?::smallint[], ?::text[], ?::int[]) AS t (idx, notification_id, status, error, failures)
+            ), latest AS (
+                SELECT DISTINCT ON (notification_id) * FROM input ORDER BY notification_id, idx DESC
+            ), updated AS (
+                UPDATE notifications n
+                SET status = l.status, last_error = l.error, updated_at = now(),
+                    attempts = coalesce(n.attempts, 0) + l.failures
+                FROM latest l
+                WHERE n.notification_id = l.notification_id
+                  AND ((n.status, l.status) IN (%1$s)
+                       OR (l.failures > 0 AND (n.status, %2$d) IN (%1$s) AND (%2$d, l.status) IN (%1$s)))
+                RETURNING n.notification_id
+            )
+            SELECT i.idx,
+                   l.idx IS NOT NULL AS is_last,
+                   u.notification_id IS NOT NULL AS updated,
+                   e.notification_id IS NOT NULL AS found,
+                   e.status AS previous
+            FROM input i
+            LEFT JOIN latest l ON l.idx = i.idx
+            LEFT JOIN updated u ON u.notification_id = i.notification_id
+            LEFT JOIN notifications e ON e.notification_id = i.notification_id
+            """.formatted(ALLOWED_TRANSITIONS, NotificationStatus.FAILED.getCode());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts notifications (status queued) and their outbox events, positionally paired, in one
+     * multi-row statement. Rows whose request_id already exists are skipped together with their
+     * outbox event. Returns the ids that were actually inserted.
+     */
+    public Set<UUID> insertWithOutbox(List<NotificationEntity> notifications, List<OutboxEvent> events) {
+        if (notifications.isEmpty()) return Set.of();
+        if (notifications.size() > MAX_ROWS_PER_STATEMENT) {
+            Set<UUID> inserted = new HashSet<>();
+            for (int from = 0; from < notifications.size(); from += MAX_ROWS_PER_STATEMENT) {
+                int to = Math.min(from + MAX_ROWS_PER_STATEMENT, notifications.size());
+                inserted.addAll(insertWithOutbox(notifications.subList(from, to), events.subList(from, to)));
+            }
+            return inserted;
+        }
+
+        StringBuilder sql = new StringBuilder("""
+                WITH input (notification_id, request_id, user_id, notification_type, template_code, variables, metadata,
+                            created_at, outbox_id, exchange, routing_key, priority, message_schema, payload) AS (VALUES """);
+        List<Object> args = new ArrayList<>(notifications.size() * 14);
+        for (int i = 0; i < notifications.size(); i++) {
+            NotificationEntity n = notifications.get(i);
+            OutboxEvent e = events.get(i);
+            if (i > 0) sql.append(", ");
+            sql.append(ROW);
+            args.add(n.getNotificationId());
+            args.add(n.getRequestId());
+            args.add(n.getUserId());
+            args.add(n.getNotificationType().getCode());
+            args.add(n.getTemplateCode());
+            args.add(n.getVariables());
+            args.add(n.getMetadata());
+            args.add(n.getCreatedAt());
+            args.add(e.getId() != null ? e.getId() : UuidV7Generator.next());
+            args.add(e.getExchange());
+            args.add(e.getRoutingKey());
+            args.add(e.getPriority());
+            args.add(e.getMessageSchema());
+            args.add(e.getPayload());
+        }
+        sql.append("""
+                ), inserted AS (
+                    INSERT INTO notifications (notification_id, request_id, user_id, notification_type, template_code,
+                                               variables, status, attempts, metadata, created_at, updated_at)
+                    SELECT notification_id, request_id, user_id, notification_type, template_code,
+                           variables, %d, 0, metadata, created_at, created_at
+                    FROM input
+                    ON CONFLICT (request_id) DO NOTHING
+                    RETURNING notification_id
+                ), outbox AS (
+                    INSERT INTO notification_outbox (id, notification_id, exchange, routing_key, priority, message_schema, payload, created_at)
+                    SELECT i.outbox_id, i.notification_id, i.exchange, i.routing_key, i.priority, i.message_schema, i.payload, i.created_at
+                    FROM input i JOIN inserted USING (notification_id)
+                )
+                SELECT notification_id FROM inserted
+                """.formatted(NotificationStatus.QUEUED.getCode()));
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), UUID.class, args.toArray()));
+    }
+
+    // request_id -> notification_id for the ids that exist
+    public Map<String, UUID> findIdsByRequestIds(Collection<String> requestIds) {
+        Map<String, UUID> ids = new HashMap<>();
+        if (requestIds.isEmpty()) return ids;
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement("SELECT request_id, notification_id FROM notifications WHERE request_id = ANY (?)");
+            Array array = con.createArrayOf("text", requestIds.toArray());
+            ps.setArray(1, array);
+            return ps;
+        }, rs -> {
+            ids.put(rs.getString(1), rs.getObject(2, UUID.class));
+        });
+        return ids;
+    }
+
+    // failures: failed reports folded into this update, added to attempts
+    public record StatusUpdate(UUID notificationId, NotificationStatus status, String error, int failures) {}
+
+    public enum StatusOutcome { UPDATED, UNCHANGED, REJECTED, NOT_FOUND, SUPERSEDED }
+
+    /**
+     * Applies status updates in one set-based UPDATE ... FROM unnest(...). Per notification only the last update in the list is applied,
+     * earlier ones come back SUPERSEDED. An update whose transition is not allowed is REJECTED, except
+     * a repeated final status (delivered -> delivered) which is UNCHANGED. Attempts grow by the update's failure count, on the
+     * server. Outcomes are positional.
+     */
+    public List<StatusOutcome> updateStatuses(List<StatusUpdate> updates) {
+        if (updates.isEmpty()) return List.of();
+        int n = updates.size();
+        Integer[] idx = new Integer[n];
+        UUID[] ids = new UUID[n];
+        Short[] statuses = new Short[n];
+        String[] errors = new String[n];
+        Integer[] failures = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            StatusUpdate u = updates.get(i);
+            idx[i] = i;
+            ids[i] = u.notificationId();
+            statuses[i] = u.status().getCode();
+            errors[i] = truncateError(u.error());
+            failures[i] = u.failures();
+        }
+        StatusOutcome[] outcomes = new StatusOutcome[n];
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(UPDATE_STATUSES);
+            ps.setArray(1, con.createArrayOf("int4", idx));
+            ps.setArray(2, con.createArrayOf("uuid", ids));
+            ps.setArray(3, con.createArrayOf("int2", statuses));
+            ps.setArray(4, con.createArrayOf("text", errors));
+            ps.setArray(5, con.createArrayOf("int4", failures));
+            return ps;
+        }, rs -> {
+            int i = rs.getInt("idx");
+            if (!rs.getBoolean("is_last")) {
+                outcomes[i] = StatusOutcome.SUPERSEDED;
+            } else {
+                short code = rs.getShort("previous");
+                NotificationStatus previous = rs.wasNull() ? null : NotificationStatus.fromCode(code);
+                outcomes[i] = outcome(rs.getBoolean("updated"), rs.getBoolean("found"), previous, updates.get(i).status());
+            }
+        });
+        return List.of(outcomes);
+    }
+
+    // single guarded UPDATE, one round trip
+    public StatusOutcome updateStatus(UUID notificationId, NotificationStatus status, String error) {
+        return updateStatuses(List.of(new StatusUpdate(notificationId, status, error,
+                status == NotificationStatus.FAILED ? 1 : 0))).get(0);
+    }
+
+    public static String truncateError(String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    // previous: status before the statement, null when the row has none (the guard never matches it)
+    public static StatusOutcome outcome(boolean updated, boolean found, NotificationStatus previous, NotificationStatus status) {
+        if (updated) return StatusOutcome.UPDATED;
+        if (!found) return StatusOutcome.NOT_FOUND;
+        return previous != null && previous.isFinal() && status == previous
+                ? StatusOutcome.UNCHANGED
+                : StatusOutcome.REJECTED;
+    }
+
+    private static String allowedTransitions() {
+        StringJoiner pairs = new StringJoiner(", ");
+        for (NotificationStatus from : NotificationStatus.values()) {
+            for (NotificationStatus to : NotificationStatus.values()) {
+                if (from.canTransitionTo(to)) pairs.add("(" + from.getCode() + ", " + to.getCode() + ")");
+            }
+        }
+        return pairs.toString();
+    }
+}
@@ -1,14 +1,26 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.NotificationEntity;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<NotificationEntity, UUID> {
     Optional<NotificationEntity> findByRequestId(String requestId);
-}
 
+    List<NotificationEntity> findByRequestIdIn(Collection<String> requestIds);
+
+    // server-side cursor (needs a transaction), used to rebuild the request_id Bloom filter
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("select n.requestId from NotificationEntity n where n.requestId is not null")
+    Stream<String> streamRequestIds();
+}
@@ -0,0 +1,19 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    // SKIP LOCKED lets several relay instances drain the table without double-publishing;
+    // high priority rows leave first when the outbox has a backlog
+    @Query(value = "SELECT * FROM notification_outbox ORDER BY priority DESC NULLS LAST, created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
@@ -1,15 +1,34 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.PreferenceSnapshot;
 import com.example.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
+
+
+    // routing fields only, one joined select and no entity hydration (password, createdAt, ...)
+    @Query("""
+            select new com.example.demo.dto.PreferenceSnapshot(u.id, u.email, u.pushToken,
+                   coalesce(p.emailEnabled, false), coalesce(p.pushEnabled, false), p.language)
+            from User u left join u.preference p where u.id = :id""")
+    Optional<PreferenceSnapshot> findPreferenceSnapshotById(@Param("id") UUID id);
+
+    @Query("""
+            select new com.example.demo.dto.PreferenceSnapshot(u.id, u.email, u.pushToken,
+                   coalesce(p.emailEnabled, false), coalesce(p.pushEnabled, false), p.language)
+            from User u left join u.preference p where u.id in :ids""")
+    List<PreferenceSnapshot> findPreferenceSnapshotsByIdIn(@Param("ids") Collection<UUID> ids);
 }
 
 
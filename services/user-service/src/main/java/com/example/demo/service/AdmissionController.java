@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ApiResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load shedding for notification ingestion. A request is admitted only while in-flight requests,
+ * threads waiting for a DB connection and the outbox relay lag (time from insert to broker confirm)
+ * are all under their limits; otherwise the caller gets 429 with a Retry-After hint. The lag limit
+ * sheds load when the relay falls behind a reachable broker; during a broker outage the lag grows
+ * regardless of load, and requests keep being accepted into the outbox until it holds
+ * max-outbox-rows rows. That bound is what keeps notification_outbox from growing without limit.
+ */
+@Component
+public class AdmissionController {
+
+    // outcome of admit(); closing an admitted one ends the request
+    public final class Admission implements AutoCloseable {
+        private final String rejectReason;
+        private final long retryAfterSeconds;
+        private boolean closed;
+
+        private Admission(String rejectReason, long retryAfterSeconds) {
+            this.rejectReason = rejectReason;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public boolean isAdmitted() {
+            return rejectReason == null;
+        }
+
+        public String getRejectReason() {
+            return rejectReason;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        // 429 with a Retry-After hint for a rejected admission
+        public <T> ResponseEntity<ApiResponse<T>> toResponse() {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(new ApiResponse<>(false, null, rejectReason, "overloaded", null));
+        }
+
+        @Override
+        public void close() {
+            if (isAdmitted() && !closed) {
+                closed = true;
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final DataSource dataSource;
+    private final OutboxRelay relay;
+    private final MeterRegistry meterRegistry;
+    private final int maxInFlight;
+    private final int maxDbWaiters;
+    private final long maxPublishLagMs;
+    private final long maxOutboxRows;
+
+    public AdmissionController(DataSource dataSource,
+                               OutboxRelay relay,
+                               MeterRegistry meterRegistry,
+                               @Value("${notification.admission.max-in-flight:200}") int maxInFlight,
+                               @Value("${notification.admission.max-db-waiters:20}") int maxDbWaiters,
+                               @Value("${notification.admission.max-publish-lag-ms:10000}") long maxPublishLagMs,
+                               @Value("${notification.admission.max-outbox-rows:1000000}") long maxOutboxRows) {
+        this.dataSource = dataSource;
+        this.relay = relay;
+        this.meterRegistry = meterRegistry;
+        this.maxInFlight = maxInFlight;
+        this.maxDbWaiters = maxDbWaiters;
+        this.maxPublishLagMs = maxPublishLagMs;
+        this.maxOutboxRows = maxOutboxRows;
+        Gauge.builder("notification.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Notification requests currently admitted")
+                .register(meterRegistry);
+    }
+
+    public Admission admit() {
+        if (relay.getOutboxRows() >= maxOutboxRows) {
+            return reject("outbox_full", 30);
+        }
+        long lag = relay.getLagMillis();
+        if (lag > maxPublishLagMs && !relay.isBrokerDown()) {
+            return reject("publish_lag", Math.min(30, Math.max(1, lag / 1000)));
+        }
+        HikariPoolMXBean pool = hikariPool();
+        if (pool != null && pool.getThreadsAwaitingConnection() > maxDbWaiters) {
+            return reject("db_pool_saturated", 1);
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            return reject("too_many_in_flight", 1);
+        }
+        return new Admission(null, 0);
+    }
+
+    private Admission reject(String reason, long retryAfterSeconds) {
+        meterRegistry.counter("notification.admission.rejected", "reason", reason).increment();
+        return new Admission(reason, retryAfterSeconds);
+    }
+
+    private HikariPoolMXBean hikariPool() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean()
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded map with a per-entry TTL, shared by {@link RequestIdCache} and {@link PreferenceCache}.
+ * Access-ordered, so a put at capacity drops the least recently used entry in O(1) instead of
+ * scanning for expired ones; expired entries go on read or on {@link #purgeExpired()}.
+ */
+final class ExpiringLruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final long ttlNanos;
+
+    ExpiringLruCache(int maxSize, long ttlNanos) {
+        this.ttlNanos = ttlNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // null when absent or expired
+    synchronized V get(K key) {
+        Entry<V> e = entries.get(key);
+        if (e == null) return null;
+        if (e.expiresAt() - System.nanoTime() < 0) {
+            entries.remove(key);
+            return null;
+        }
+        return e.value();
+    }
+
+    synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    synchronized void purgeExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(e -> e.expiresAt() - now < 0);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -1,119 +1,373 @@
 package com.example.demo.service;
 
-import com.example.demo.config.NotificationPublisher;
+import com.example.demo.config.NotificationRouter;
+import com.example.demo.config.NotificationRouter.Route;
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.NotificationRequestDTO;
 import com.example.demo.dto.NotificationStatusRequestDTO;
+import com.example.demo.dto.PreferenceSnapshot;
 import com.example.demo.entity.NotificationEntity;
-import com.example.demo.entity.NotificationPreference;
-import com.example.demo.entity.User;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.NotificationType;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.UuidV7Generator;
+import com.example.demo.repository.NotificationBulkWriter;
+import com.example.demo.repository.NotificationJdbcRepository;
+import com.example.demo.repository.NotificationJdbcRepository.StatusOutcome;
 import com.example.demo.repository.NotificationRepository;
-import com.example.demo.repository.UserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository; // to fetch preferences & user contact
-    private final NotificationPublisher publisher;
+    private final PreferenceCache preferenceCache; // per-user preferences & contact, read-through
+    private final NotificationWriteCoalescer writeCoalescer; // batches single creates into multi-row inserts
+    private final NotificationBulkWriter bulkWriter; // COPY-based path for large batches
+    private final NotificationJdbcRepository jdbcRepository; // set-based status updates
+    private final int bulkThreshold;
+    private final NotificationRouter router;
+    private final RequestIdCache requestIdCache; // recent request_ids, answers retries without a query
+    private final RequestIdBloomFilter requestIdFilter; // proves a request_id is new without a query
 
     private final ObjectMapper objectMapper;
 
-    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository, NotificationPublisher publisher, ObjectMapper objectMapper) {
+    public NotificationService(NotificationRepository notificationRepository, PreferenceCache preferenceCache, NotificationWriteCoalescer writeCoalescer, NotificationBulkWriter bulkWriter, NotificationJdbcRepository jdbcRepository, NotificationRouter router, RequestIdCache requestIdCache, RequestIdBloomFilter requestIdFilter, ObjectMapper objectMapper,
+                               @Value("${notification.batch.copy-threshold:500}") int bulkThreshold) {
         this.notificationRepository = notificationRepository;
-        this.userRepository = userRepository;
-        this.publisher = publisher;
+        this.preferenceCache = preferenceCache;
+        this.writeCoalescer = writeCoalescer;
+        this.bulkWriter = bulkWriter;
+        this.jdbcRepository = jdbcRepository;
+        this.bulkThreshold = bulkThreshold;
+        this.router = router;
+        this.requestIdCache = requestIdCache;
+        this.requestIdFilter = requestIdFilter;
         this.objectMapper = objectMapper;
     }
 
-    // create/send notification
-    @Transactional
+    // create/send notification; not transactional: the write is one statement run by the coalescer
     public ApiResponse<Map<String, Object>> createNotification(NotificationRequestDTO req) {
-        // 1. idempotency: check request_id
+        Route route = router.route(NotificationType.fromValue(req.getNotification_type()));
+        if (route == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported_notification_type");
+        }
+
+        // 1. idempotency: check request_id (cache first, then DB unless the Bloom filter says it is new)
         if (req.getRequest_id() != null) {
-            Optional<NotificationEntity> existing = notificationRepository.findByRequestId(req.getRequest_id());
+            UUID cached = requestIdCache.get(req.getRequest_id());
+            if (cached != null) {
+                return new ApiResponse<>(true, Map.of("notification_id", cached), null, "already_queued", null);
+            }
+            Optional<NotificationEntity> existing = requestIdFilter.mightContain(req.getRequest_id())
+                    ? notificationRepository.findByRequestId(req.getRequest_id())
+                    : Optional.empty();
             if (existing.isPresent()) {
+                requestIdCache.put(req.getRequest_id(), existing.get().getNotificationId());
                 Map<String, Object> data = Map.of("notification_id", existing.get().getNotificationId());
                 return new ApiResponse<>(true, data, null, "already_queued", null);
             }
         }
 
         // 2. validate user exists
-        User user = userRepository.findById(req.getUser_id())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "user_not_found"));
+        PreferenceSnapshot user = preferenceCache.get(req.getUser_id());
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "user_not_found");
+        }
 
         // 3. check user preferences
-        NotificationPreference pref = user.getPreference();
-        if ("email".equalsIgnoreCase(req.getNotification_type()) && (pref == null || !Boolean.TRUE.equals(pref.getEmailEnabled()))) {
-            return new ApiResponse<>(false, null, null, "user_disabled_email", null);
+        String rejection = checkPreference(req, user);
+        if (rejection != null) {
+            return new ApiResponse<>(false, null, null, rejection, null);
+        }
+
+        // 4. persist notification (status = queued) and its outbox event, OutboxRelay publishes it.
+        // Coalesced with concurrent creates into one multi-row INSERT; a duplicate request_id loses
+        // on the unique index and gets the existing id back
+        NotificationEntity saved = newNotification(req);
+        saved.setNotificationId(UuidV7Generator.next());
+        NotificationWriteCoalescer.WriteResult written = writeCoalescer.write(saved, newOutboxEvent(saved, req, route));
+        requestIdFilter.add(saved.getRequestId());
+        requestIdCache.put(saved.getRequestId(), written.notificationId());
+        if (!written.created()) {
+            return new ApiResponse<>(true, Map.of("notification_id", written.notificationId()), null, "already_queued", null);
+        }
+
+        Map<String, Object> respData = Map.of("notification_id", saved.getNotificationId());
+        return new ApiResponse<>(true, respData, null, "notification_queued", null);
+    }
+
+    // bulk create: one lookup per table for the whole batch, results are per item
+    @Transactional
+    public List<Map<String, Object>> createNotifications(List<NotificationRequestDTO> requests) {
+        // 1. idempotency: one query for all request_ids
+        Set<String> requestIds = new HashSet<>();
+        Set<UUID> userIds = new HashSet<>();
+        for (NotificationRequestDTO req : requests) {
+            if (req.getRequest_id() != null) requestIds.add(req.getRequest_id());
+            if (req.getUser_id() != null) userIds.add(req.getUser_id());
+        }
+        Map<String, UUID> existing = new HashMap<>();
+        for (Iterator<String> it = requestIds.iterator(); it.hasNext(); ) {
+            String requestId = it.next();
+            UUID cached = requestIdCache.get(requestId);
+            if (cached != null) {
+                existing.put(requestId, cached);
+                it.remove();
+            } else if (!requestIdFilter.mightContain(requestId)) {
+                it.remove(); // definitely new
+            }
+        }
+        if (!requestIds.isEmpty()) {
+            for (NotificationEntity e : notificationRepository.findByRequestIdIn(requestIds)) {
+                existing.put(e.getRequestId(), e.getNotificationId());
+                requestIdCache.put(e.getRequestId(), e.getNotificationId());
+            }
+        }
+
+        // 2. users with their preferences, one query for the ones not cached
+        Map<UUID, PreferenceSnapshot> users = userIds.isEmpty() ? Map.of() : preferenceCache.getAll(userIds);
+
+        // 3. validate each item, collect the accepted ones
+        List<Map<String, Object>> results = new ArrayList<>(requests.size());
+        List<NotificationEntity> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<Route> acceptedRoutes = new ArrayList<>();
+        Set<String> seenInBatch = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            NotificationRequestDTO req = requests.get(i);
+            String requestId = req.getRequest_id();
+            if (requestId != null && existing.containsKey(requestId)) {
+                results.add(batchResult(i, req, true, existing.get(requestId), "already_queued"));
+                continue;
+            }
+            if (requestId != null && !seenInBatch.add(requestId)) {
+                results.add(null); // duplicate within the batch, resolved after save
+                continue;
+            }
+            Route route = router.route(NotificationType.fromValue(req.getNotification_type()));
+            if (route == null) {
+                results.add(batchResult(i, req, false, null, "unsupported_notification_type"));
+                continue;
+            }
+            PreferenceSnapshot user = req.getUser_id() == null ? null : users.get(req.getUser_id());
+            if (user == null) {
+                results.add(batchResult(i, req, false, null, "user_not_found"));
+                continue;
+            }
+            String rejection = checkPreference(req, user);
+            if (rejection != null) {
+                results.add(batchResult(i, req, false, null, rejection));
+                continue;
+            }
+            results.add(null);
+            accepted.add(newNotification(req));
+            acceptedIndexes.add(i);
+            acceptedRoutes.add(route);
         }
-        if ("push".equalsIgnoreCase(req.getNotification_type()) && (pref == null || !Boolean.TRUE.equals(pref.getPushEnabled()))) {
-            return new ApiResponse<>(false, null, null, "user_disabled_push", null);
+
+        // 4. inserts, outbox rows in the same transaction: COPY for large batches, one multi-row
+        // INSERT otherwise; both skip request_ids that were inserted concurrently (ON CONFLICT)
+        List<OutboxEvent> events = new ArrayList<>(accepted.size());
+        for (int k = 0; k < accepted.size(); k++) {
+            NotificationEntity e = accepted.get(k);
+            e.setNotificationId(UuidV7Generator.next());
+            events.add(newOutboxEvent(e, requests.get(acceptedIndexes.get(k)), acceptedRoutes.get(k)));
         }
+        Set<UUID> inserted = accepted.size() >= bulkThreshold
+                ? bulkWriter.write(accepted, events)
+                : jdbcRepository.insertWithOutbox(accepted, events);
+
+        Map<String, UUID> created = new HashMap<>();
+        for (int k = 0; k < accepted.size(); k++) {
+            NotificationEntity e = accepted.get(k);
+            int index = acceptedIndexes.get(k);
+            if (!inserted.contains(e.getNotificationId())) {
+                results.set(index, null); // request_id inserted concurrently, resolved below
+                continue;
+            }
+            if (e.getRequestId() != null) {
+                requestIdFilter.add(e.getRequestId());
+                created.put(e.getRequestId(), e.getNotificationId());
+                requestIdCache.putAfterCommit(e.getRequestId(), e.getNotificationId());
+            }
+            results.set(index, batchResult(index, requests.get(index), true, e.getNotificationId(), "notification_queued"));
+        }
+        if (inserted.size() < accepted.size()) {
+            Set<String> lost = new HashSet<>();
+            for (NotificationEntity e : accepted) {
+                if (!inserted.contains(e.getNotificationId()) && e.getRequestId() != null) lost.add(e.getRequestId());
+            }
+            for (NotificationEntity e : notificationRepository.findByRequestIdIn(lost)) {
+                created.put(e.getRequestId(), e.getNotificationId());
+            }
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                NotificationRequestDTO req = requests.get(i);
+                UUID id = created.get(req.getRequest_id());
+                results.set(i, id != null
+                        ? batchResult(i, req, true, id, "already_queued")
+                        : batchResult(i, req, false, null, "duplicate_request_id"));
+            }
+        }
+        return results;
+    }
 
-        // 4. persist notification (status = queued)
+    // status update endpoint
+    @Transactional
+    public ApiResponse<Void> updateStatus(NotificationStatusRequestDTO req) {
+        UUID notificationId = UUID.fromString(req.getNotification_id());
+        NotificationStatus status = NotificationStatus.fromValue(req.getStatus());
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid_status");
+        }
+        // guarded UPDATE: the transition check and the attempts increment happen in the statement
+        return statusResponse(jdbcRepository.updateStatus(notificationId, status, req.getError()));
+    }
+
+    static ApiResponse<Void> statusResponse(StatusOutcome outcome) {
+        return switch (outcome) {
+            case UPDATED -> new ApiResponse<>(true, null, null, "status_updated", null);
+            case UNCHANGED -> new ApiResponse<>(true, null, null, "already_delivered", null);
+            case REJECTED -> new ApiResponse<>(false, null, null, "invalid_status_transition", null);
+            case NOT_FOUND, SUPERSEDED -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "notification_not_found");
+        };
+    }
+
+    // bulk status callbacks: one UPDATE for the whole list, results are per item
+    public List<Map<String, Object>> updateStatuses(List<NotificationStatusRequestDTO> requests) {
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        List<NotificationJdbcRepository.StatusUpdate> updates = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            NotificationStatusRequestDTO req = requests.get(i);
+            UUID id = parseUuid(req.getNotification_id());
+            NotificationStatus status = NotificationStatus.fromValue(req.getStatus());
+            if (id == null || status == null) {
+                results.set(i, statusResult(i, req, false, id == null ? "invalid_notification_id" : "invalid_status"));
+                continue;
+            }
+            updates.add(new NotificationJdbcRepository.StatusUpdate(id, status, req.getError(),
+                    status == NotificationStatus.FAILED ? 1 : 0));
+            indexes.add(i);
+        }
+
+        List<StatusOutcome> outcomes = jdbcRepository.updateStatuses(updates);
+        for (int k = 0; k < outcomes.size(); k++) {
+            int i = indexes.get(k);
+            NotificationStatusRequestDTO req = requests.get(i);
+            results.set(i, switch (outcomes.get(k)) {
+                case UPDATED -> statusResult(i, req, true, "status_updated");
+                case UNCHANGED -> statusResult(i, req, true, "already_delivered");
+                case REJECTED -> statusResult(i, req, false, "invalid_status_transition");
+                case SUPERSEDED -> statusResult(i, req, true, "superseded");
+                case NOT_FOUND -> statusResult(i, req, false, "notification_not_found");
+            });
+        }
+        return results;
+    }
+
+    // returns the rejection message, or null when the user accepts this channel
+    static String checkPreference(NotificationRequestDTO req, PreferenceSnapshot pref) {
+        NotificationType type = NotificationType.fromValue(req.getNotification_type());
+        if (type == NotificationType.EMAIL && !pref.emailEnabled()) {
+            return "user_disabled_email";
+        }
+        if (type == NotificationType.PUSH && !pref.pushEnabled()) {
+            return "user_disabled_push";
+        }
+        return null;
+    }
+
+    private NotificationEntity newNotification(NotificationRequestDTO req) {
         NotificationEntity e = new NotificationEntity();
         e.setRequestId(req.getRequest_id());
         e.setUserId(req.getUser_id());
-        e.setNotificationType(req.getNotification_type());
+        e.setNotificationType(NotificationType.fromValue(req.getNotification_type()));
         e.setTemplateCode(req.getTemplate_code());
         e.setVariables(convertMapToJson(req.getVariables()));
-        e.setStatus("queued");
+        e.setStatus(NotificationStatus.QUEUED);
         e.setAttempts(0);
         e.setMetadata(convertMapToJson(req.getMetadata()));
         e.setCreatedAt(OffsetDateTime.now());
         e.setUpdatedAt(OffsetDateTime.now());
-        NotificationEntity saved = notificationRepository.save(e);
+        return e;
+    }
 
-        // 5. publish to queue (delegated)
-        try {
-            publisher.publish("notification-exchange", "notification-routing-key", req);
-        } catch (Exception ex) {
-            // optionally set status=failed or keep queued for retry
-            saved.setStatus("failed");
-            saved.setLastError(ex.getMessage());
-            notificationRepository.save(saved);
-            return new ApiResponse<>(false, null, ex.getMessage(), "publish_failed", null);
-        }
+    private OutboxEvent newOutboxEvent(NotificationEntity saved, NotificationRequestDTO req, Route route) {
+        return new OutboxEvent(saved.getNotificationId(), route.exchange(), route.routingKey(), router.priority(req.getPriority()), route.schema(),
+                toMessageJson(saved.getNotificationId(), req), saved.getCreatedAt());
+    }
 
-        Map<String, Object> respData = Map.of("notification_id", saved.getNotificationId());
-        return new ApiResponse<>(true, respData, null, "notification_queued", null);
+    private Map<String, Object> batchResult(int index, NotificationRequestDTO req, boolean success, UUID notificationId, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", index);
+        result.put("request_id", req.getRequest_id());
+        result.put("success", success);
+        result.put("notification_id", notificationId);
+        result.put("message", message);
+        return result;
     }
 
-    // status update endpoint
-    @Transactional
-    public ApiResponse<Void> updateStatus(NotificationStatusRequestDTO req) {
-        UUID notificationId = UUID.fromString(req.getNotification_id());
-        NotificationEntity e = notificationRepository.findById(notificationId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "notification_not_found"));
+    private Map<String, Object> statusResult(int index, NotificationStatusRequestDTO req, boolean success, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("index", index);
+        result.put("notification_id", req.getNotification_id());
+        result.put("success", success);
+        result.put("message", message);
+        return result;
+    }
 
-        // idempotency check: if already 'delivered' and incoming is 'delivered' -> noop
-        if ("delivered".equalsIgnoreCase(e.getStatus()) && "delivered".equalsIgnoreCase(req.getStatus())) {
-            return new ApiResponse<>(true, null, null, "already_delivered", null);
+    static UUID parseUuid(String value) {
+        if (value == null) return null;
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
+    }
 
-        e.setStatus(req.getStatus());
-        e.setLastError(req.getError());
-        e.setAttempts((e.getAttempts() == null ? 0 : e.getAttempts()) + ("failed".equalsIgnoreCase(req.getStatus()) ? 1 : 0));
-        e.setUpdatedAt(OffsetDateTime.now());
-        notificationRepository.save(e);
-
-        return new ApiResponse<>(true, null, null, "status_updated", null);
+    String toMessageJson(UUID notificationId, NotificationRequestDTO req) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("notification_id", notificationId);
+        message.put("notification_type", req.getNotification_type());
+        message.put("user_id", req.getUser_id());
+        message.put("template_code", req.getTemplate_code());
+        message.put("variables", req.getVariables());
+        message.put("request_id", req.getRequest_id());
+        // clamped like the AMQP priority, notification_job_v1.json allows 0..10
+        message.put("priority", router.priority(req.getPriority()));
+        message.put("metadata", req.getMetadata());
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize notification message", e);
+        }
     }
 
     // helper converter (use Jackson in real code)
-    private String convertMapToJson(Map<String, Object> map) {
+    String convertMapToJson(Map<String, Object> map) {
         if (map == null) return "{}";
         try {
             return objectMapper.writeValueAsString(map);
@@ -0,0 +1,179 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RabbitMQConfig;
+import com.example.demo.dto.NotificationStatusRequestDTO;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.repository.NotificationJdbcRepository;
+import com.example.demo.repository.NotificationJdbcRepository.StatusOutcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Consumes delivery receipts from status.queue in batches and hands them to the
+ * {@link StatusUpdateCoalescer}. The batch is acked (multiple) only after every receipt in it has
+ * been written. Receipts that cannot be parsed or point at unknown notifications are logged and
+ * acked, redelivering them would not help. A receipt whose write still fails after the coalescer
+ * retried it on its own is republished to failed.queue before the ack, so one poison receipt does not
+ * send the batch round forever; the ack waits for the broker to confirm that republish (mandatory, so
+ * an unroutable one counts as failed). Only when the database is unreachable or the republish is not
+ * confirmed is the batch nacked and redelivered.
+ */
+@Component
+public class NotificationStatusListener {
+
+    // carries the reason on receipts republished to failed.queue
+    static final String ERROR_HEADER = "x-status-error";
+
+    private final StatusUpdateCoalescer coalescer;
+    private final ObjectMapper objectMapper;
+    private final RabbitTemplate rabbitTemplate;
+    private final long flushTimeoutMs;
+    private final long confirmTimeoutMs;
+    private final DistributionSummary batchSizes;
+    private final Counter applied;
+    private final Counter rejected;
+    private final Counter deadLettered;
+
+    public NotificationStatusListener(StatusUpdateCoalescer coalescer, ObjectMapper objectMapper,
+                                      RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                                      @Value("${notification.status-listener.flush-timeout-ms:30000}") long flushTimeoutMs,
+                                      @Value("${notification.publisher.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.coalescer = coalescer;
+        this.objectMapper = objectMapper;
+        this.rabbitTemplate = rabbitTemplate;
+        this.flushTimeoutMs = flushTimeoutMs;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.batchSizes = DistributionSummary.builder("notification.status.listener.batch.size").register(meterRegistry);
+        this.applied = Counter.builder("notification.status.listener.receipts").tag("result", "applied").register(meterRegistry);
+        this.rejected = Counter.builder("notification.status.listener.receipts").tag("result", "rejected").register(meterRegistry);
+        this.deadLettered = Counter.builder("notification.status.listener.receipts").tag("result", "dead_lettered").register(meterRegistry);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.STATUS_QUEUE,
+            containerFactory = "statusListenerContainerFactory",
+            autoStartup = "${notification.status-listener.enabled:true}")
+    public void onReceipts(List<Message> messages, Channel channel) throws IOException {
+        if (messages.isEmpty()) return;
+        long lastTag = messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag();
+        batchSizes.record(messages.size());
+
+        List<CompletableFuture<StatusOutcome>> pending = new ArrayList<>(messages.size());
+        List<Message> submitted = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            NotificationStatusRequestDTO receipt;
+            try {
+                receipt = objectMapper.readValue(message.getBody(), NotificationStatusRequestDTO.class);
+            } catch (IOException e) {
+                reject("unreadable receipt: " + e.getMessage());
+                continue;
+            }
+            UUID id = NotificationService.parseUuid(receipt.getNotification_id());
+            NotificationStatus status = NotificationStatus.fromValue(receipt.getStatus());
+            if (id == null || status == null) {
+                reject("invalid receipt " + receipt.getNotification_id() + " / " + receipt.getStatus());
+                continue;
+            }
+            pending.add(coalescer.submit(id, status, receipt.getError()));
+            submitted.add(message);
+        }
+
+        // ack only once everything in this batch is written or dead-lettered
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(flushTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            channel.basicNack(lastTag, true, true);
+            return;
+        } catch (TimeoutException e) {
+            System.err.println("Applying " + messages.size() + " status receipts timed out, requeueing them");
+            channel.basicNack(lastTag, true, true);
+            return;
+        } catch (ExecutionException e) {
+            // some writes failed even on their own; handled per receipt below
+        }
+
+        List<Message> poison = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            Throwable error = pending.get(i).handle((outcome, ex) -> ex).join();
+            if (error == null) continue;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (StatusUpdateCoalescer.isTransient(cause)) {
+                System.err.println("Applying " + messages.size() + " status receipts failed, requeueing them: " + cause.getMessage());
+                channel.basicNack(lastTag, true, true);
+                return;
+            }
+            poison.add(submitted.get(i));
+            errors.add(cause);
+        }
+        for (int i = 0; i < poison.size(); i++) {
+            try {
+                deadLetter(poison.get(i), errors.get(i));
+            } catch (AmqpException e) {
+                System.err.println("Dead-lettering a status receipt failed, requeueing the batch: " + e.getMessage());
+                channel.basicNack(lastTag, true, true);
+                return;
+            }
+        }
+
+        for (CompletableFuture<StatusOutcome> f : pending) {
+            if (f.isCompletedExceptionally()) continue;
+            StatusOutcome outcome = f.join();
+            if (outcome == StatusOutcome.NOT_FOUND) {
+                reject("unknown notification");
+            } else if (outcome == StatusOutcome.REJECTED) {
+                reject("stale status transition");
+            } else {
+                applied.increment();
+            }
+        }
+        channel.basicAck(lastTag, true);
+    }
+
+    private void deadLetter(Message message, Throwable error) {
+        message.getMessageProperties().setHeader(ERROR_HEADER, NotificationJdbcRepository.truncateError(String.valueOf(error.getMessage())));
+        CorrelationData correlation = new CorrelationData();
+        rabbitTemplate.send(RabbitMQConfig.EXCHANGE, RabbitMQConfig.FAILED_ROUTING_KEY, message, correlation);
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("interrupted waiting for the failed.queue confirm");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("no confirm for the failed.queue publish", e);
+        }
+        // with mandatory set, a return arrives before the confirm
+        if (!confirm.isAck() || correlation.getReturned() != null) {
+            throw new AmqpException("failed.queue publish not accepted: "
+                    + (confirm.isAck() ? "unroutable" : confirm.getReason()));
+        }
+        deadLettered.increment();
+        System.err.println("Status receipt moved to failed.queue: " + error.getMessage());
+    }
+
+    private void reject(String reason) {
+        rejected.increment();
+        System.err.println("Dropping status receipt, " + reason);
+    }
+}
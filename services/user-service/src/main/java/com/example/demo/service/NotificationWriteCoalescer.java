@@ -0,0 +1,227 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.repository.NotificationJdbcRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for single creates: concurrent callers hand their notification + outbox row to one
+ * flusher thread, which writes whatever has accumulated as a single multi-row INSERT (see
+ * NotificationJdbcRepository#insertWithOutbox) and completes each caller's future. A batch is flushed
+ * at max-batch items or when its oldest item has waited the current window. The window adapts: it
+ * grows while batches keep collecting more than one item and shrinks toward zero when they don't, and
+ * never exceeds the latency budget minus the observed flush time, so a lone request is not held back.
+ * If the batch statement fails, its items are retried one by one so only the offending row fails.
+ */
+@Component
+public class NotificationWriteCoalescer {
+
+    // outcome for one caller: its own id, or the id of the row that already had this request_id
+    public record WriteResult(UUID notificationId, boolean created) {}
+
+    private record Pending(NotificationEntity notification, OutboxEvent event, long enqueuedAt,
+                           CompletableFuture<WriteResult> result) {}
+
+    private final NotificationJdbcRepository jdbcRepository;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long budgetNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+
+    private volatile boolean running = true;
+    private volatile long windowNanos;
+    private volatile long flushNanosEwma;
+
+    public NotificationWriteCoalescer(NotificationJdbcRepository jdbcRepository,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${notification.coalescer.enabled:true}") boolean enabled,
+                                      @Value("${notification.coalescer.max-batch:200}") int maxBatch,
+                                      @Value("${notification.coalescer.latency-budget-ms:50}") long budgetMs) {
+        this.jdbcRepository = jdbcRepository;
+        this.enabled = enabled;
+        this.maxBatch = Math.min(maxBatch, NotificationJdbcRepository.MAX_ROWS_PER_STATEMENT);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        this.batchSizes = DistributionSummary.builder("notification.coalescer.batch.size").register(meterRegistry);
+        this.flushTimer = Timer.builder("notification.coalescer.flush").register(meterRegistry);
+        Gauge.builder("notification.coalescer.window", this, c -> c.windowNanos / 1e6)
+                .description("Current wait window for collecting a batch")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("notification.coalescer.queued", queue, BlockingQueue::size).register(meterRegistry);
+
+        if (enabled) {
+            flusher = new Thread(this::run, "notification-write-coalescer");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Writes the notification and its outbox event, blocking until the batch containing them is committed.
+     * Runs the statement on the calling thread when coalescing is disabled.
+     * <p>
+     * On write_timeout the item is cancelled, so it is skipped if no flush has picked it up yet. A flush
+     * already in progress may still commit it: the client should retry with the same request_id, which
+     * then answers already_queued with the notification_id that was written.
+     */
+    public WriteResult write(NotificationEntity notification, OutboxEvent event) {
+        Pending p = new Pending(notification, event, System.nanoTime(), new CompletableFuture<>());
+        if (enabled) {
+            queue.add(p);
+        } else {
+            flush(List.of(p));
+        }
+        try {
+            // generous bound: only hit if the flusher is stuck on the database
+            return p.result().get(Math.max(budgetNanos * 100, TimeUnit.SECONDS.toNanos(5)), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "interrupted");
+        } catch (TimeoutException e) {
+            p.result().cancel(false);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "write_timeout");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // whatever is still queued is written by the closing thread
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) flush(rest);
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - batch.size());
+                long deadline = first.enqueuedAt() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // shutdown: flush what was collected, then the loop ends
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                adapt(batch.size());
+                batch = new ArrayList<>(maxBatch);
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long start = System.nanoTime();
+        try {
+            // callers that timed out are gone, their rows are not written
+            List<Pending> live = batch.stream().filter(p -> !p.result().isDone()).toList();
+            try {
+                insert(live);
+            } catch (RuntimeException e) {
+                if (live.size() == 1) {
+                    live.get(0).result().completeExceptionally(e);
+                } else {
+                    System.err.println("Coalesced insert of " + live.size() + " notifications failed, retrying one by one: " + e.getMessage());
+                    for (Pending p : live) {
+                        try {
+                            insert(List.of(p));
+                        } catch (RuntimeException single) {
+                            p.result().completeExceptionally(single);
+                        }
+                    }
+                }
+            }
+        } finally {
+            long took = System.nanoTime() - start;
+            flushTimer.record(took, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+            flushNanosEwma = flushNanosEwma == 0 ? took : (flushNanosEwma * 7 + took) / 8;
+        }
+    }
+
+    // one statement for the batch; completes every future unless it throws
+    private void insert(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+        List<NotificationEntity> notifications = new ArrayList<>(batch.size());
+        List<OutboxEvent> events = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            notifications.add(p.notification());
+            events.add(p.event());
+        }
+        Set<UUID> inserted = jdbcRepository.insertWithOutbox(notifications, events);
+
+        // the rest lost on request_id, to an existing row or to an earlier item in this batch
+        Set<String> conflicting = new HashSet<>();
+        for (Pending p : batch) {
+            if (!inserted.contains(p.notification().getNotificationId())) conflicting.add(p.notification().getRequestId());
+        }
+        Map<String, UUID> existing = jdbcRepository.findIdsByRequestIds(conflicting);
+        for (Pending p : batch) {
+            NotificationEntity n = p.notification();
+            if (inserted.contains(n.getNotificationId())) {
+                p.result().complete(new WriteResult(n.getNotificationId(), true));
+            } else if (existing.containsKey(n.getRequestId())) {
+                p.result().complete(new WriteResult(existing.get(n.getRequestId()), false));
+            } else {
+                p.result().completeExceptionally(new ResponseStatusException(HttpStatus.CONFLICT, "duplicate_request_id"));
+            }
+        }
+    }
+
+    // more than one caller per batch means waiting pays off; a lone caller means it only added latency
+    private void adapt(int batchSize) {
+        long ceiling = Math.max(0, budgetNanos - flushNanosEwma);
+        long window = windowNanos;
+        if (batchSize >= maxBatch) {
+            window = window / 2; // filling up before the deadline, no need to wait that long
+        } else if (batchSize > 1) {
+            window = Math.max(window + window / 4, TimeUnit.MICROSECONDS.toNanos(200));
+        } else {
+            window = window / 2;
+        }
+        windowNanos = Math.min(window, ceiling);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.service;
+
+import com.example.demo.config.NotificationPublisher;
+import com.example.demo.config.OutboundMessage;
+import com.example.demo.config.PublishResult;
+import com.example.demo.config.RabbitMQConfig;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.repository.NotificationJdbcRepository;
+import com.example.demo.repository.NotificationJdbcRepository.StatusUpdate;
+import com.example.demo.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// drains notification_outbox to RabbitMQ; rows are removed once the broker confirmed (or rejected) them.
+// While the broker is unreachable they stay in the outbox, so any instance can publish them later.
+// The table is bounded by admission control: past notification.admission.max-outbox-rows creates get 429.
+// notification.outbox.lag and notification.outbox.rows show how far publishing trails ingestion
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final NotificationJdbcRepository jdbcRepository;
+    private final NotificationPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int parallelism;
+    private final long errorLogIntervalMs;
+    private final Executor workers;
+
+    // rate-limits the outage log: time of the last line, failures since then
+    private final AtomicLong lastErrorLoggedAt = new AtomicLong();
+    private final AtomicLong suppressedErrors = new AtomicLong();
+    private volatile boolean brokerDown;
+
+    // age of the oldest row in the last drained batch, i.e. how far publishing trails ingestion
+    private volatile long lagMillis;
+
+    // rows in notification_outbox as of the last count
+    private volatile long outboxRows;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       NotificationJdbcRepository jdbcRepository,
+                       NotificationPublisher publisher,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${notification.outbox.batch-size:100}") int batchSize,
+                       @Value("${notification.outbox.parallelism:1}") int parallelism,
+                       @Value("${notification.outbox.error-log-interval-ms:30000}") long errorLogIntervalMs,
+                       MeterRegistry meterRegistry,
+                       Environment environment) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcRepository = jdbcRepository;
+        this.publisher = publisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.errorLogIntervalMs = errorLogIntervalMs;
+        this.workers = parallelism > 1 ? newWorkers(parallelism, Threading.VIRTUAL.isActive(environment)) : null;
+        Gauge.builder("notification.outbox.lag", this, OutboxRelay::getLagMillis)
+                .description("Age of the oldest outbox row in the last drained batch")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("notification.outbox.rows", this, OutboxRelay::getOutboxRows)
+                .description("Rows waiting in notification_outbox")
+                .register(meterRegistry);
+    }
+
+    // drain workers spend most of their time waiting on Postgres and broker confirms, so in
+    // virtual-thread mode each drain gets a fresh virtual thread instead of a pooled carrier
+    private static Executor newWorkers(int parallelism, boolean virtual) {
+        if (!virtual) {
+            return Executors.newFixedThreadPool(parallelism);
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("outbox-relay-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers instanceof ExecutorService pool) pool.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:200}")
+    public void drain() {
+        if (workers == null) {
+            drainLoop();
+            return;
+        }
+        // parallel drains: SKIP LOCKED hands each worker different rows, the publisher pool different connections
+        CompletableFuture<?>[] running = new CompletableFuture<?>[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            running[i] = CompletableFuture.runAsync(this::drainLoop, workers);
+        }
+        CompletableFuture.allOf(running).join();
+    }
+
+    // a full count is cheap next to the drain while the table is small, and the bound is what keeps it small
+    @Scheduled(fixedDelayString = "${notification.outbox.count-interval-ms:5000}")
+    public void countRows() {
+        outboxRows = outboxRepository.count();
+    }
+
+    private void drainLoop() {
+        // keep going while batches come back full, each batch in its own transaction
+        int relayed;
+        do {
+            Integer count = transactionTemplate.execute(status -> relayBatch());
+            relayed = count == null ? 0 : count;
+        } while (relayed == batchSize);
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            lagMillis = 0;
+            return 0;
+        }
+        OffsetDateTime oldest = batch.stream().map(OutboxEvent::getCreatedAt).min(OffsetDateTime::compareTo).orElseThrow();
+        lagMillis = Duration.between(oldest, OffsetDateTime.now()).toMillis();
+
+        List<OutboundMessage> messages = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            int priority = event.getPriority() == null ? RabbitMQConfig.DEFAULT_PRIORITY : event.getPriority();
+            messages.add(new OutboundMessage(event.getExchange(), event.getRoutingKey(), event.getPayload(), priority, event.getMessageSchema()));
+        }
+
+        List<PublishResult> results = publishBatch(messages);
+        if (results == null) return 0; // broker unreachable: the whole batch stays for the next run
+
+        // nacked or timed out messages fail their notification, unsent ones stay in the outbox
+        List<OutboxEvent> done = new ArrayList<>(batch.size());
+        List<StatusUpdate> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PublishResult result = results.get(i);
+            if (result.status() == PublishResult.Status.NOT_SENT) continue;
+            if (result.status() == PublishResult.Status.REJECTED) {
+                failed.add(new StatusUpdate(batch.get(i).getNotificationId(), NotificationStatus.FAILED, result.error(), 1));
+            }
+            done.add(batch.get(i));
+        }
+        // guarded like every other status write, so a receipt that already arrived is not overwritten
+        jdbcRepository.updateStatuses(failed);
+        outboxRepository.deleteAllInBatch(done);
+        return done.size() == batch.size() ? done.size() : 0;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public long getOutboxRows() {
+        return outboxRows;
+    }
+
+    // true from a failed publish until the next one goes through
+    public boolean isBrokerDown() {
+        return brokerDown;
+    }
+
+    private List<PublishResult> publishBatch(List<OutboundMessage> messages) {
+        try {
+            List<PublishResult> results = publisher.publishBatch(messages);
+            if (brokerDown) {
+                brokerDown = false;
+                System.out.println("Outbox relay is publishing again");
+            }
+            return results;
+        } catch (Exception ex) {
+            brokerDown = true;
+            logPublishFailure(ex);
+            return null;
+        }
+    }
+
+    // one line per interval during an outage instead of one per poll
+    private void logPublishFailure(Exception ex) {
+        long now = System.currentTimeMillis();
+        long last = lastErrorLoggedAt.get();
+        if (now - last < errorLogIntervalMs || !lastErrorLoggedAt.compareAndSet(last, now)) {
+            suppressedErrors.incrementAndGet();
+            return;
+        }
+        long suppressed = suppressedErrors.getAndSet(0);
+        System.err.println("Outbox relay could not publish, rows stay in the outbox: " + ex.getMessage()
+                + (suppressed > 0 ? " (" + suppressed + " more failures since the last report)" : ""));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PreferenceSnapshot;
+import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read-through cache of per-user {@link PreferenceSnapshot}s for the send path. Entries are dropped
+ * by {@link UserService#updatePreferences}; the TTL bounds staleness for updates made on other instances.
+ * Unknown users are not cached.
+ */
+@Component
+public class PreferenceCache {
+
+    private final ExpiringLruCache<UUID, PreferenceSnapshot> entries;
+    private final UserRepository userRepository;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PreferenceCache(UserRepository userRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${notification.preference-cache.max-size:100000}") int maxSize,
+                           @Value("${notification.preference-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.entries = new ExpiringLruCache<>(maxSize, ttlSeconds * 1_000_000_000L);
+        this.hits = meterRegistry.counter("notification.preference.cache", "result", "hit");
+        this.misses = meterRegistry.counter("notification.preference.cache", "result", "miss");
+        Gauge.builder("notification.preference.cache.size", entries, ExpiringLruCache::size).register(meterRegistry);
+        Gauge.builder("notification.preference.cache.hit.ratio", this, PreferenceCache::hitRatio)
+                .description("Share of preference lookups answered without a query")
+                .register(meterRegistry);
+    }
+
+    // null when the user does not exist
+    public PreferenceSnapshot get(UUID userId) {
+        if (userId == null) return null;
+        PreferenceSnapshot cached = cached(userId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        PreferenceSnapshot loaded = userRepository.findPreferenceSnapshotById(userId).orElse(null);
+        put(loaded);
+        return loaded;
+    }
+
+    // batch variant: one query for all the misses; unknown users are absent from the result
+    public Map<UUID, PreferenceSnapshot> getAll(Collection<UUID> userIds) {
+        Map<UUID, PreferenceSnapshot> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : userIds) {
+            PreferenceSnapshot cached = cached(id);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        hits.increment(result.size());
+        misses.increment(missing.size());
+        if (!missing.isEmpty()) {
+            for (PreferenceSnapshot snapshot : userRepository.findPreferenceSnapshotsByIdIn(missing)) {
+                put(snapshot);
+                result.put(snapshot.userId(), snapshot);
+            }
+        }
+        return result;
+    }
+
+    // cache only, for callers that load misses themselves (reactive path)
+    public PreferenceSnapshot getIfPresent(UUID userId) {
+        PreferenceSnapshot cached = userId == null ? null : cached(userId);
+        (cached != null ? hits : misses).increment();
+        return cached;
+    }
+
+    public void invalidate(UUID userId) {
+        if (userId != null) entries.remove(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.preference-cache.purge-interval-ms:30000}")
+    public void purgeExpired() {
+        entries.purgeExpired();
+    }
+
+    private PreferenceSnapshot cached(UUID userId) {
+        return entries.get(userId);
+    }
+
+    public void put(PreferenceSnapshot snapshot) {
+        if (snapshot == null) return;
+        entries.put(snapshot.userId(), snapshot);
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
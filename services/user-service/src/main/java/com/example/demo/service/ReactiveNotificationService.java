@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import com.example.demo.config.NotificationRouter;
+import com.example.demo.config.NotificationRouter.Route;
+import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.NotificationRequestDTO;
+import com.example.demo.dto.NotificationStatusRequestDTO;
+import com.example.demo.dto.PreferenceSnapshot;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.NotificationType;
+import com.example.demo.entity.UuidV7Generator;
+import com.example.demo.repository.NotificationJdbcRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link NotificationService#createNotification} and
+ * {@link NotificationService#updateStatus} on R2DBC. The notification row and its outbox row are
+ * written by one statement, so no transaction has to be held open across awaits; OutboxRelay
+ * publishes them exactly like the ones from the blocking path.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveNotificationService {
+
+    // notification + outbox row in one atomic statement; empty result when request_id already exists
+    private static final String INSERT_WITH_OUTBOX = """
+            WITH inserted AS (
+                INSERT INTO notifications (notification_id, request_id, user_id, notification_type, template_code,
+                                           variables, status, attempts, metadata, created_at, updated_at)
+                VALUES (:id, :requestId, :userId, :type, :templateCode, CAST(:variables AS jsonb), %d, 0,
+                        CAST(:metadata AS jsonb), :createdAt, :createdAt)
+                ON CONFLICT (request_id) DO NOTHING
+                RETURNING notification_id, created_at
+            ), outbox AS (
+                INSERT INTO notification_outbox (id, notification_id, exchange, routing_key, priority, message_schema, payload, created_at)
+                SELECT :outboxId, notification_id, :exchange, :routingKey, :priority, :schema, CAST(:payload AS jsonb), created_at
+                FROM inserted
+            )
+            SELECT notification_id FROM inserted
+            """.formatted(NotificationStatus.QUEUED.getCode());
+
+    private static final String SELECT_PREFERENCE = """
+            SELECT u.id, u.email, u.push_token, coalesce(p.email_enabled, false) AS email_enabled,
+                   coalesce(p.push_enabled, false) AS push_enabled, p.language
+            FROM users u LEFT JOIN notification_preferences p ON p.user_id = u.id
+            WHERE u.id = :id
+            """;
+
+    // same guard as the blocking updateStatus; previous is read from the pre-update snapshot
+    private static final String UPDATE_STATUS = """
+            WITH updated AS (
+                UPDATE notifications
+                SET status = CAST(:status AS smallint), last_error = :error, updated_at = :now,
+                    attempts = coalesce(attempts, 0) + :failures
+                WHERE notification_id = :id AND (status, CAST(:status AS smallint)) IN (%s)
+                RETURNING notification_id
+            )
+            SELECT EXISTS (SELECT 1 FROM updated) AS updated,
+                   EXISTS (SELECT 1 FROM notifications WHERE notification_id = :id) AS found,
+                   (SELECT status FROM notifications WHERE notification_id = :id) AS previous
+            """.formatted(NotificationJdbcRepository.ALLOWED_TRANSITIONS);
+
+    private final DatabaseClient db;
+    private final NotificationRouter router;
+    private final RequestIdCache requestIdCache;
+    private final RequestIdBloomFilter requestIdFilter;
+    private final PreferenceCache preferenceCache;
+    private final NotificationService notificationService; // message building shared with the blocking path
+
+    public ReactiveNotificationService(DatabaseClient db, NotificationRouter router, RequestIdCache requestIdCache,
+                                       RequestIdBloomFilter requestIdFilter, PreferenceCache preferenceCache,
+                                       NotificationService notificationService) {
+        this.db = db;
+        this.router = router;
+        this.requestIdCache = requestIdCache;
+        this.requestIdFilter = requestIdFilter;
+        this.preferenceCache = preferenceCache;
+        this.notificationService = notificationService;
+    }
+
+    public Mono<ApiResponse<Map<String, Object>>> createNotification(NotificationRequestDTO req) {
+        Route route = router.route(NotificationType.fromValue(req.getNotification_type()));
+        if (route == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported_notification_type"));
+        }
+
+        // 1. idempotency: cache, then DB unless the Bloom filter says the id is new
+        String requestId = req.getRequest_id();
+        UUID cached = requestIdCache.get(requestId);
+        if (cached != null) {
+            return Mono.just(alreadyQueued(cached));
+        }
+        Mono<UUID> existing = requestId != null && requestIdFilter.mightContain(requestId)
+                ? findByRequestId(requestId)
+                : Mono.empty();
+
+        return existing.map(this::alreadyQueued)
+                .switchIfEmpty(Mono.defer(() -> preference(req.getUser_id())
+                        // 2. validate user exists
+                        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "user_not_found")))
+                        .flatMap(pref -> {
+                            // 3. check user preferences
+                            String rejection = NotificationService.checkPreference(req, pref);
+                            if (rejection != null) {
+                                return Mono.just(new ApiResponse<Map<String, Object>>(false, null, null, rejection, null));
+                            }
+                            // 4. notification + outbox row
+                            return insert(req, route);
+                        })));
+    }
+
+    public Mono<ApiResponse<Void>> updateStatus(NotificationStatusRequestDTO req) {
+        UUID notificationId = UUID.fromString(req.getNotification_id());
+        NotificationStatus status = NotificationStatus.fromValue(req.getStatus());
+        if (status == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid_status"));
+        }
+        DatabaseClient.GenericExecuteSpec update = db.sql(UPDATE_STATUS)
+                .bind("id", notificationId)
+                .bind("status", status.getCode())
+                .bind("failures", status == NotificationStatus.FAILED ? 1 : 0)
+                .bind("now", OffsetDateTime.now());
+        update = req.getError() == null ? update.bindNull("error", String.class) : update.bind("error", NotificationJdbcRepository.truncateError(req.getError()));
+
+        return update.map(row -> NotificationJdbcRepository.outcome(Boolean.TRUE.equals(row.get("updated", Boolean.class)),
+                        Boolean.TRUE.equals(row.get("found", Boolean.class)), previous(row.get("previous", Short.class)), status))
+                .one()
+                .map(NotificationService::statusResponse);
+    }
+
+    private Mono<ApiResponse<Map<String, Object>>> insert(NotificationRequestDTO req, Route route) {
+        UUID id = UuidV7Generator.next();
+        String requestId = req.getRequest_id();
+        DatabaseClient.GenericExecuteSpec spec = db.sql(INSERT_WITH_OUTBOX)
+                .bind("id", id)
+                .bind("userId", req.getUser_id())
+                .bind("type", NotificationType.fromValue(req.getNotification_type()).getCode())
+                .bind("variables", notificationService.convertMapToJson(req.getVariables()))
+                .bind("metadata", notificationService.convertMapToJson(req.getMetadata()))
+                .bind("createdAt", OffsetDateTime.now())
+                .bind("outboxId", UuidV7Generator.next())
+                .bind("exchange", route.exchange())
+                .bind("routingKey", route.routingKey())
+                .bind("priority", router.priority(req.getPriority()))
+                .bind("schema", route.schema())
+                .bind("payload", notificationService.toMessageJson(id, req));
+        spec = requestId == null ? spec.bindNull("requestId", String.class) : spec.bind("requestId", requestId);
+        spec = req.getTemplate_code() == null ? spec.bindNull("templateCode", String.class) : spec.bind("templateCode", req.getTemplate_code());
+
+        return spec.map(row -> row.get("notification_id", UUID.class))
+                .first()
+                .doOnNext(inserted -> {
+                    // single statement, already committed
+                    requestIdFilter.add(requestId);
+                    requestIdCache.put(requestId, inserted);
+                })
+                .map(inserted -> new ApiResponse<>(true, Map.<String, Object>of("notification_id", inserted), null, "notification_queued", null))
+                // lost a race on request_id: answer with the winner's id
+                .switchIfEmpty(Mono.defer(() -> findByRequestId(requestId)
+                        .map(this::alreadyQueued)
+                        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.CONFLICT, "duplicate_request_id")))));
+    }
+
+    private static NotificationStatus previous(Short code) {
+        return code == null ? null : NotificationStatus.fromCode(code);
+    }
+
+    private Mono<UUID> findByRequestId(String requestId) {
+        if (requestId == null) return Mono.empty();
+        return db.sql("SELECT notification_id FROM notifications WHERE request_id = :requestId")
+                .bind("requestId", requestId)
+                .map(row -> row.get("notification_id", UUID.class))
+                .first()
+                .doOnNext(id -> requestIdCache.put(requestId, id));
+    }
+
+    private Mono<PreferenceSnapshot> preference(UUID userId) {
+        if (userId == null) return Mono.empty();
+        PreferenceSnapshot cached = preferenceCache.getIfPresent(userId);
+        if (cached != null) return Mono.just(cached);
+        return db.sql(SELECT_PREFERENCE)
+                .bind("id", userId)
+                .map(row -> new PreferenceSnapshot(row.get("id", UUID.class), row.get("email", String.class),
+                        row.get("push_token", String.class), Boolean.TRUE.equals(row.get("email_enabled", Boolean.class)),
+                        Boolean.TRUE.equals(row.get("push_enabled", Boolean.class)), row.get("language", String.class)))
+                .first()
+                .doOnNext(preferenceCache::put);
+    }
+
+    private ApiResponse<Map<String, Object>> alreadyQueued(UUID notificationId) {
+        return new ApiResponse<>(true, Map.of("notification_id", notificationId), null, "already_queued", null);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.NotificationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Scalable Bloom filter over notifications.request_id. {@link #mightContain} returning false proves
+ * the id was never inserted, so the idempotency lookup can skip Postgres. Stages double in capacity
+ * and halve their error rate, keeping the overall false-positive rate under the configured target
+ * however many ids are added. Until the startup rebuild finishes every id is reported as maybe present.
+ */
+@Component
+public class RequestIdBloomFilter {
+
+    private static final double LN2_SQUARED = Math.log(2) * Math.log(2);
+
+    private static final class Stage {
+        final AtomicLongArray words;
+        final long bits;
+        final int hashes;
+        final long capacity;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong setBits = new AtomicLong();
+
+        Stage(long capacity, double fpp) {
+            this.capacity = capacity;
+            long m = Math.max(64, (long) Math.ceil(-capacity * Math.log(fpp) / LN2_SQUARED));
+            this.words = new AtomicLongArray((int) ((m + 63) >>> 6));
+            this.bits = (long) words.length() << 6;
+            this.hashes = Math.max(1, (int) Math.ceil(-Math.log(fpp) / Math.log(2)));
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) break;
+                } while (!words.compareAndSet(word, current, current | mask));
+                if ((current & mask) == 0) setBits.incrementAndGet();
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        double falsePositiveRate() {
+            return Math.pow((double) setBits.get() / bits, hashes);
+        }
+    }
+
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final long initialCapacity;
+    private final double firstStageFpp;
+    private final ReentrantLock growLock = new ReentrantLock();
+
+    private volatile Stage[] stages;
+    private volatile boolean ready;
+
+    public RequestIdBloomFilter(NotificationRepository notificationRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${notification.request-id-bloom.initial-capacity:1000000}") long initialCapacity,
+                                @Value("${notification.request-id-bloom.fpp:0.01}") double fpp) {
+        this.notificationRepository = notificationRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.initialCapacity = initialCapacity;
+        // stage i gets fpp0 * 0.5^i, so the sum over all stages stays below fpp
+        this.firstStageFpp = fpp / 2;
+        this.stages = new Stage[]{new Stage(initialCapacity, firstStageFpp)};
+
+        Gauge.builder("notification.request.id.bloom.bytes", this, RequestIdBloomFilter::memoryBytes)
+                .description("Memory used by the request_id Bloom filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("notification.request.id.bloom.fpp", this, RequestIdBloomFilter::falsePositiveRate)
+                .description("Estimated false-positive rate of the request_id Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("notification.request.id.bloom.entries", this, RequestIdBloomFilter::size)
+                .register(meterRegistry);
+    }
+
+    // stream every existing request_id off the startup path; inserts made meanwhile are added by the service
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Thread loader = new Thread(() -> {
+            long started = System.currentTimeMillis();
+            try {
+                Long loaded = readOnlyTx.execute(status -> {
+                    try (Stream<String> ids = notificationRepository.streamRequestIds()) {
+                        long[] n = {0};
+                        ids.forEach(id -> {
+                            add(id);
+                            n[0]++;
+                        });
+                        return n[0];
+                    }
+                });
+                ready = true;
+                System.out.println("request_id bloom filter loaded " + loaded + " ids in "
+                        + (System.currentTimeMillis() - started) + " ms");
+            } catch (RuntimeException e) {
+                System.err.println("request_id bloom filter rebuild failed, idempotency checks stay on the DB: " + e.getMessage());
+            }
+        }, "request-id-bloom-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public void add(String requestId) {
+        if (requestId == null) return;
+        long h1 = hash(requestId, 0x9E3779B97F4A7C15L);
+        long h2 = hash(requestId, 0xC2B2AE3D27D4EB4FL) | 1;
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.count.get() >= last.capacity) {
+            last = grow(last);
+        }
+        last.add(h1, h2);
+    }
+
+    // false means the id was definitely never added
+    public boolean mightContain(String requestId) {
+        if (!ready || requestId == null) return true;
+        long h1 = hash(requestId, 0x9E3779B97F4A7C15L);
+        long h2 = hash(requestId, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) return true;
+        }
+        return false;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long size() {
+        long n = 0;
+        for (Stage stage : stages) n += stage.count.get();
+        return n;
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) bytes += (long) stage.words.length() * Long.BYTES;
+        return bytes;
+    }
+
+    public double falsePositiveRate() {
+        double none = 1.0;
+        for (Stage stage : stages) none *= 1.0 - stage.falsePositiveRate();
+        return 1.0 - none;
+    }
+
+    private Stage grow(Stage full) {
+        growLock.lock();
+        try {
+            Stage[] current = stages;
+            Stage last = current[current.length - 1];
+            if (last != full) return last; // another thread already grew it
+            int n = current.length;
+            Stage next = new Stage(initialCapacity << Math.min(n, 20), firstStageFpp * Math.pow(0.5, n));
+            Stage[] grown = new Stage[n + 1];
+            System.arraycopy(current, 0, grown, 0, n);
+            grown[n] = next;
+            stages = grown;
+            return next;
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    // FNV-1a over the chars, finished with the murmur3 64-bit mixer
+    private static long hash(String s, long seed) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Recently created request_id -> notification_id mappings, so gateway retries of the same
+ * request are answered without a database round trip. Bounded (least recently used go first)
+ * and TTL-evicted; a miss only means "ask the database".
+ */
+@Component
+public class RequestIdCache {
+
+    private final ExpiringLruCache<String, UUID> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RequestIdCache(@Value("${notification.request-id-cache.max-size:100000}") int maxSize,
+                          @Value("${notification.request-id-cache.ttl-seconds:300}") long ttlSeconds,
+                          MeterRegistry meterRegistry) {
+        this.entries = new ExpiringLruCache<>(maxSize, ttlSeconds * 1_000_000_000L);
+        this.hits = meterRegistry.counter("notification.request.id.cache", "result", "hit");
+        this.misses = meterRegistry.counter("notification.request.id.cache", "result", "miss");
+        Gauge.builder("notification.request.id.cache.size", entries, ExpiringLruCache::size).register(meterRegistry);
+    }
+
+    public UUID get(String requestId) {
+        if (requestId == null) return null;
+        UUID notificationId = entries.get(requestId);
+        (notificationId != null ? hits : misses).increment();
+        return notificationId;
+    }
+
+    public void put(String requestId, UUID notificationId) {
+        if (requestId == null || notificationId == null) return;
+        entries.put(requestId, notificationId);
+    }
+
+    // only cache rows that are actually committed, a rolled back insert must not answer retries
+    public void putAfterCommit(String requestId, UUID notificationId) {
+        if (requestId == null || notificationId == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(requestId, notificationId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(requestId, notificationId);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notification.request-id-cache.purge-interval-ms:30000}")
+    public void purgeExpired() {
+        entries.purgeExpired();
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.repository.NotificationJdbcRepository;
+import com.example.demo.repository.NotificationJdbcRepository.StatusOutcome;
+import com.example.demo.repository.NotificationJdbcRepository.StatusUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers status reports per notification for a short window so a burst like queued -> sending ->
+ * delivered becomes one row update. The buffer is lock-striped by notification_id; per id a report
+ * replaces the buffered status when {@link NotificationStatus#canTransitionTo} allows it, so a
+ * failed -> pending retry survives while a stale report is dropped. Failed reports are counted so
+ * attempts stay right. Every window the stripes are swapped out and written with one
+ * {@link NotificationJdbcRepository#updateStatuses} call.
+ * <p>
+ * If that statement fails for a reason other than the database being unreachable, each update is
+ * retried on its own so only the updates that still fail report an error.
+ * <p>
+ * Nothing is durable until that write: {@link #submit} returns a future that completes after the
+ * flush, and callers consuming from status.queue ack only then, so a crash loses nothing the
+ * broker won't redeliver. Remaining entries are flushed on shutdown.
+ */
+@Component
+public class StatusUpdateCoalescer {
+
+    private static final class Entry {
+        NotificationStatus status;
+        String error;
+        int failures;
+        final List<Waiter> waiters = new ArrayList<>(2);
+    }
+
+    private record Waiter(NotificationStatus status, CompletableFuture<StatusOutcome> result) {}
+
+    private final NotificationJdbcRepository jdbcRepository;
+    private final long windowNanos;
+    private final int maxBuffered;
+    private final ReentrantLock[] locks;
+    private final Map<UUID, Entry>[] stripes;
+    private final AtomicInteger buffered = new AtomicInteger();
+    // the flusher thread and shutdown may flush at the same time
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+    private final DistributionSummary flushSizes;
+    private final Counter merged;
+
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public StatusUpdateCoalescer(NotificationJdbcRepository jdbcRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notification.status-coalescer.window-ms:50}") long windowMs,
+                                 @Value("${notification.status-coalescer.max-buffered:5000}") int maxBuffered,
+                                 @Value("${notification.status-coalescer.stripes:16}") int stripeCount) {
+        this.jdbcRepository = jdbcRepository;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBuffered = maxBuffered;
+        this.locks = new ReentrantLock[stripeCount];
+        this.stripes = new Map[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            locks[i] = new ReentrantLock();
+            stripes[i] = new HashMap<>();
+        }
+        this.flushSizes = DistributionSummary.builder("notification.status.coalescer.flush.size").register(meterRegistry);
+        this.merged = Counter.builder("notification.status.coalescer.merged")
+                .description("Status reports folded into an already buffered update")
+                .register(meterRegistry);
+        Gauge.builder("notification.status.coalescer.buffered", buffered, AtomicInteger::get).register(meterRegistry);
+
+        flusher = new Thread(this::run, "notification-status-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Buffers one status report. The future completes once the merged update for this notification
+     * has been written: with its outcome, or SUPERSEDED when a later status replaced this one.
+     */
+    public CompletableFuture<StatusOutcome> submit(UUID notificationId, NotificationStatus status, String error) {
+        CompletableFuture<StatusOutcome> result = new CompletableFuture<>();
+        int stripe = Math.floorMod(notificationId.hashCode(), stripes.length);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            if (!running) {
+                result.completeExceptionally(new IllegalStateException("status coalescer is shut down"));
+                return result;
+            }
+            Entry entry = stripes[stripe].get(notificationId);
+            if (entry == null) {
+                entry = new Entry();
+                stripes[stripe].put(notificationId, entry);
+                buffered.incrementAndGet();
+            } else {
+                merged.increment();
+            }
+            // a repeated status replaces too, it may carry a newer error text; only a merged
+            // FAILED counts as an attempt, a stale one is superseded like any other report
+            if (entry.status == null || status == entry.status || entry.status.canTransitionTo(status)) {
+                entry.status = status;
+                entry.error = error;
+                if (status == NotificationStatus.FAILED) entry.failures++;
+            }
+            entry.waiters.add(new Waiter(status, result));
+        } finally {
+            lock.unlock();
+        }
+        if (buffered.get() >= maxBuffered) LockSupport.unpark(flusher);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        flush();
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(this, windowNanos);
+            flush();
+        }
+    }
+
+    private void flush() {
+        flushLock.lock();
+        try {
+            flushBuffered();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushBuffered() {
+        Map<UUID, Entry> drained = new HashMap<>();
+        for (int i = 0; i < stripes.length; i++) {
+            locks[i].lock();
+            try {
+                if (stripes[i].isEmpty()) continue;
+                drained.putAll(stripes[i]);
+                buffered.addAndGet(-stripes[i].size());
+                stripes[i] = new HashMap<>();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        if (drained.isEmpty()) return;
+
+        List<StatusUpdate> updates = new ArrayList<>(drained.size());
+        List<Entry> entries = new ArrayList<>(drained.size());
+        drained.forEach((id, e) -> {
+            updates.add(new StatusUpdate(id, e.status, e.error, e.failures));
+            entries.add(e);
+        });
+        flushSizes.record(updates.size());
+        try {
+            List<StatusOutcome> outcomes = jdbcRepository.updateStatuses(updates);
+            for (int i = 0; i < entries.size(); i++) complete(entries.get(i), outcomes.get(i));
+        } catch (RuntimeException ex) {
+            System.err.println("Flushing " + updates.size() + " status updates failed: " + ex.getMessage());
+            if (updates.size() == 1 || isTransient(ex)) {
+                for (Entry e : entries) fail(e, ex);
+                return;
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                try {
+                    complete(entries.get(i), jdbcRepository.updateStatuses(List.of(updates.get(i))).get(0));
+                } catch (RuntimeException single) {
+                    fail(entries.get(i), single);
+                }
+            }
+        }
+    }
+
+    /**
+     * True when the database could not be reached or the failure may go away on its own, so retrying
+     * item by item or dead-lettering would not help.
+     */
+    static boolean isTransient(Throwable ex) {
+        return ex instanceof TransientDataAccessException || ex instanceof DataAccessResourceFailureException;
+    }
+
+    private static void complete(Entry e, StatusOutcome outcome) {
+        for (Waiter w : e.waiters) {
+            w.result().complete(w.status() == e.status ? outcome : StatusOutcome.SUPERSEDED);
+        }
+    }
+
+    private static void fail(Entry e, RuntimeException ex) {
+        for (Waiter w : e.waiters) w.result().completeExceptionally(ex);
+    }
+}
@@ -18,10 +18,12 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final NotificationPreferenceRepository preferenceRepository;
+    private final PreferenceCache preferenceCache;
 
-    public UserService(UserRepository userRepository, NotificationPreferenceRepository preferenceRepository) {
+    public UserService(UserRepository userRepository, NotificationPreferenceRepository preferenceRepository, PreferenceCache preferenceCache) {
         this.userRepository = userRepository;
         this.preferenceRepository = preferenceRepository;
+        this.preferenceCache = preferenceCache;
     }
 
     public UserResponseDTO createUser(User user) {
@@ -83,7 +85,9 @@ public class UserService {
 //        user.setPreference(pref);
 //        userRepository.save(user);
 
-        return preferenceRepository.save(pref);
+        NotificationPreference saved = preferenceRepository.save(pref);
+        preferenceCache.invalidate(userId);
+        return saved;
     }
 }
 
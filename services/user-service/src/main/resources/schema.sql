@@ -0,0 +1,46 @@
+-- Runs on every startup before Hibernate's ddl-auto, so every statement must be idempotent.
+-- On a fresh database the tables do not exist yet and Hibernate creates them with the new types.
+
+-- notifications.status / notification_type: free text -> smallint codes of NotificationStatus / NotificationType.
+-- Matching ignores case and surrounding blanks. Any other value aborts startup instead of being lost; map it
+-- by hand first. NULL stays NULL. Rewrites the table once; later runs see smallint and do nothing.
+DO $$
+DECLARE
+    unmapped text;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'notifications'
+                 AND column_name = 'status' AND data_type <> 'smallint') THEN
+        SELECT string_agg(DISTINCT status, ', ') INTO unmapped FROM notifications
+        WHERE lower(trim(status)) NOT IN ('queued', 'pending', 'sending', 'sent', 'failed', 'delivered', 'bounced');
+        IF unmapped IS NOT NULL THEN
+            RAISE EXCEPTION 'notifications.status has values without a NotificationStatus code: %', unmapped;
+        END IF;
+        ALTER TABLE notifications ALTER COLUMN status TYPE smallint USING
+            CASE lower(trim(status))
+                WHEN 'queued' THEN 0
+                WHEN 'pending' THEN 1
+                WHEN 'sending' THEN 2
+                WHEN 'failed' THEN 3
+                WHEN 'delivered' THEN 4
+                WHEN 'sent' THEN 5
+                WHEN 'bounced' THEN 6
+            END;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'notifications'
+                 AND column_name = 'notification_type' AND data_type <> 'smallint') THEN
+        SELECT string_agg(DISTINCT notification_type, ', ') INTO unmapped FROM notifications
+        WHERE lower(trim(notification_type)) NOT IN ('email', 'push');
+        IF unmapped IS NOT NULL THEN
+            RAISE EXCEPTION 'notifications.notification_type has values without a NotificationType code: %', unmapped;
+        END IF;
+        ALTER TABLE notifications ALTER COLUMN notification_type TYPE smallint USING
+            CASE lower(trim(notification_type))
+                WHEN 'email' THEN 1
+                WHEN 'push' THEN 2
+            END;
+    END IF;
+END $$
+@@
@@ -0,0 +1,78 @@
+package com.example.demo;
+
+import com.example.demo.config.NotificationRouter;
+import com.example.demo.config.RabbitMQConfig;
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.NotificationType;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.UuidV7Generator;
+import com.example.demo.repository.NotificationJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Base of the tests that run against the Postgres from application.properties, like the context test.
+ * Every notification a test writes gets a request_id starting with {@link #prefix}; those rows and
+ * their outbox rows are removed after each test.
+ */
+@SpringBootTest
+public abstract class PostgresTestSupport {
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    // request_id prefix of every row the test class writes
+    protected final String prefix = getClass().getSimpleName() + "-";
+
+    @AfterEach
+    void removeNotifications() {
+        jdbcTemplate.update("DELETE FROM notification_outbox WHERE notification_id IN (SELECT notification_id FROM notifications WHERE request_id LIKE ?)", prefix + "%");
+        jdbcTemplate.update("DELETE FROM notifications WHERE request_id LIKE ?", prefix + "%");
+    }
+
+    protected String requestId() {
+        return prefix + UUID.randomUUID();
+    }
+
+    // an email notification with a fresh id and request_id, not yet written
+    protected NotificationEntity notification() {
+        NotificationEntity n = new NotificationEntity();
+        n.setNotificationId(UuidV7Generator.next());
+        n.setRequestId(requestId());
+        n.setUserId(UUID.randomUUID());
+        n.setNotificationType(NotificationType.EMAIL);
+        n.setTemplateCode("welcome");
+        n.setVariables("{}");
+        n.setMetadata("{}");
+        n.setCreatedAt(OffsetDateTime.now());
+        return n;
+    }
+
+    protected static OutboxEvent event(String payload) {
+        return new OutboxEvent(null, RabbitMQConfig.EXCHANGE, RabbitMQConfig.EMAIL_ROUTING_KEY, RabbitMQConfig.DEFAULT_PRIORITY,
+                NotificationRouter.JOB_SCHEMA, payload, OffsetDateTime.now());
+    }
+
+    protected static OutboxEvent event() {
+        return event("{}");
+    }
+
+    // writes a notification with its outbox row, then puts it straight into the given status
+    protected UUID insert(NotificationJdbcRepository repository, NotificationStatus status) {
+        NotificationEntity n = notification();
+        repository.insertWithOutbox(List.of(n), List.of(event()));
+        jdbcTemplate.update("UPDATE notifications SET status = ? WHERE notification_id = ?", status.getCode(), n.getNotificationId());
+        return n.getNotificationId();
+    }
+
+    protected NotificationStatus status(UUID notificationId) {
+        return NotificationStatus.fromCode(jdbcTemplate.queryForObject("SELECT status FROM notifications WHERE notification_id = ?", Short.class, notificationId));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn test -Dtest=NotificationPublisherBatchBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NotificationPublisherBatchBenchmark {
+
+    private static final int MESSAGES = 20_000;
+    private static final long CONFIRM_LATENCY_MICROS = 500;
+
+    @Test
+    void batchSizeVersusThroughput() throws Exception {
+        try (StubBroker broker = new StubBroker(CONFIRM_LATENCY_MICROS)) {
+            CachingConnectionFactory connectionFactory = broker.connectionFactory();
+            PublisherPool pool = new PublisherPool(connectionFactory, new SimpleMeterRegistry(), 1, 32);
+            NotificationPublisher publisher = new NotificationPublisher(pool, 10_000, 5_000);
+            String payload = "{\"notification_id\":\"0190c3a2-7f5e-7c3b-9d7a-3f2b1c4d5e6f\",\"notification_type\":\"email\"}";
+
+            for (int batchSize : new int[]{1, 10, 100, 500, 1000}) {
+                List<OutboundMessage> batch = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    batch.add(new OutboundMessage("notifications.direct", "email", payload, RabbitMQConfig.DEFAULT_PRIORITY, NotificationRouter.JOB_SCHEMA));
+                }
+                int rounds = Math.max(1, (batchSize == 1 ? MESSAGES / 10 : MESSAGES) / batchSize);
+                long start = System.nanoTime();
+                for (int r = 0; r < rounds; r++) {
+                    List<PublishResult> results = publisher.publishBatch(batch);
+                    assertThat(results).allMatch(result -> result.status() == PublishResult.Status.CONFIRMED);
+                }
+                report("batch=" + batchSize, rounds * batchSize, System.nanoTime() - start);
+            }
+            connectionFactory.destroy();
+        }
+    }
+
+    private static void report(String label, int messages, long nanos) {
+        System.out.printf("%-12s %8d msgs %10.0f msgs/s%n", label, messages, messages / (nanos / 1e9));
+    }
+}
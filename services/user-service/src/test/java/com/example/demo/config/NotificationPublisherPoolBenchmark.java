@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn test -Dtest=NotificationPublisherPoolBenchmark -Dbenchmark=true
+// Runs against StubBroker, whose per-connection serialization is assumed, not measured: the numbers
+// only show how the pool behaves under that model. Size the pool against a real broker.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NotificationPublisherPoolBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int BATCH_SIZE = 100;
+    private static final int BATCHES_PER_THREAD = 50;
+    private static final long CONFIRM_LATENCY_MICROS = 500;
+    private static final long WRITE_COST_NANOS = 20_000; // per message on one socket
+
+    @Test
+    void connectionsVersusThroughput() throws Exception {
+        String payload = "{\"notification_id\":\"0190c3a2-7f5e-7c3b-9d7a-3f2b1c4d5e6f\",\"notification_type\":\"email\"}";
+        List<OutboundMessage> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new OutboundMessage("notifications.direct", "email", payload, RabbitMQConfig.DEFAULT_PRIORITY, NotificationRouter.JOB_SCHEMA));
+        }
+
+        for (int connections : new int[]{1, 2, 4, 8}) {
+            try (StubBroker broker = new StubBroker(CONFIRM_LATENCY_MICROS, WRITE_COST_NANOS)) {
+                CachingConnectionFactory connectionFactory = broker.connectionFactory();
+                SimpleMeterRegistry registry = new SimpleMeterRegistry();
+                PublisherPool pool = new PublisherPool(connectionFactory, registry, connections, 32);
+                NotificationPublisher publisher = new NotificationPublisher(pool, 10_000, 5_000);
+
+                ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+                long start = System.nanoTime();
+                List<Future<?>> running = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    running.add(threads.submit(() -> {
+                        for (int b = 0; b < BATCHES_PER_THREAD; b++) {
+                            assertThat(publisher.publishBatch(batch))
+                                    .allMatch(result -> result.status() == PublishResult.Status.CONFIRMED);
+                        }
+                    }));
+                }
+                for (Future<?> f : running) f.get();
+                long nanos = System.nanoTime() - start;
+                threads.shutdown();
+
+                long messages = (long) THREADS * BATCHES_PER_THREAD * BATCH_SIZE;
+                assertThat(registry.get("notification.publisher.pool.sends").counters()).hasSize(connections);
+                System.out.printf("connections=%d threads=%d %8d msgs %10.0f msgs/s (broker connections=%d)%n",
+                        connections, THREADS, messages, messages / (nanos / 1e9), broker.connections());
+                pool.destroy();
+                connectionFactory.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationPublisherTest {
+
+    @Test
+    void missingConfirmTimesOutAndFreesTheWindow() throws Exception {
+        try (StubBroker broker = new StubBroker(StubBroker.NEVER_CONFIRM)) {
+            CachingConnectionFactory connectionFactory = broker.connectionFactory();
+            PublisherPool pool = new PublisherPool(connectionFactory, new SimpleMeterRegistry(), 1, 4);
+            // window of one message: a leaked permit would make the second batch fail to send
+            NotificationPublisher publisher = new NotificationPublisher(pool, 1, 200);
+            OutboundMessage message = new OutboundMessage("notifications.direct", "email", "{}", RabbitMQConfig.DEFAULT_PRIORITY, null);
+
+            for (int i = 0; i < 2; i++) {
+                List<PublishResult> results = publisher.publishBatch(List.of(message));
+                assertThat(results).singleElement().satisfies(result -> {
+                    assertThat(result.status()).isEqualTo(PublishResult.Status.REJECTED);
+                    assertThat(result.error()).isEqualTo("confirm_timeout");
+                });
+            }
+            assertThat(broker.published()).isEqualTo(2);
+            connectionFactory.destroy();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublisherPoolTest {
+
+    @Test
+    void eachShardOpensItsOwnNamedConnection() throws Exception {
+        try (StubBroker broker = new StubBroker(100)) {
+            CachingConnectionFactory bootFactory = broker.connectionFactory();
+            int bootCacheSize = bootFactory.getChannelCacheSize();
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            PublisherPool pool = new PublisherPool(bootFactory, registry, 3, 8);
+
+            for (int i = 0; i < 6; i++) {
+                pool.execute(template -> template.execute(channel -> null));
+            }
+
+            assertThat(broker.connectionNames()).containsExactlyInAnyOrder("publisher-0", "publisher-1", "publisher-2");
+            for (int shard = 0; shard < 3; shard++) {
+                assertThat(registry.get("notification.publisher.pool.sends").tag("shard", String.valueOf(shard)).counter().count())
+                        .isEqualTo(2);
+            }
+            // the Spring Boot factory is only a source of client settings
+            assertThat(bootFactory.getChannelCacheSize()).isEqualTo(bootCacheSize);
+            pool.destroy();
+            bootFactory.destroy();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.config;
+
+import com.rabbitmq.client.AddressResolver;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * In-process stand-in for a RabbitMQ broker: channels accept publishes and ack them after a fixed
+ * confirm latency. With a write cost, publishes on one connection are serialized and each costs that
+ * time, an assumed model of frames sharing one TCP socket rather than a measured broker property.
+ */
+class StubBroker implements AutoCloseable {
+
+    // confirm latency that drops every confirm, like a channel that closed with publishes outstanding
+    static final long NEVER_CONFIRM = -1;
+
+    private final long confirmLatencyMicros;
+    private final long writeCostNanos;
+    private final ScheduledExecutorService acker = Executors.newScheduledThreadPool(2);
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final List<String> connectionNames = new CopyOnWriteArrayList<>();
+
+    StubBroker(long confirmLatencyMicros) {
+        this(confirmLatencyMicros, 0);
+    }
+
+    StubBroker(long confirmLatencyMicros, long writeCostNanos) {
+        this.confirmLatencyMicros = confirmLatencyMicros;
+        this.writeCostNanos = writeCostNanos;
+    }
+
+    CachingConnectionFactory connectionFactory() throws Exception {
+        ConnectionFactory rabbit = mock(ConnectionFactory.class);
+        when(rabbit.newConnection(nullable(ExecutorService.class), nullable(String.class))).thenAnswer(inv -> newConnection(inv.getArgument(1)));
+        when(rabbit.newConnection(nullable(ExecutorService.class), anyList(), nullable(String.class))).thenAnswer(inv -> newConnection(inv.getArgument(2)));
+        when(rabbit.newConnection(nullable(ExecutorService.class), any(AddressResolver.class), nullable(String.class))).thenAnswer(inv -> newConnection(inv.getArgument(2)));
+
+        CachingConnectionFactory factory = new CachingConnectionFactory(rabbit);
+        factory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        return factory;
+    }
+
+    long published() {
+        return published.get();
+    }
+
+    long connections() {
+        return connections.get();
+    }
+
+    List<String> connectionNames() {
+        return List.copyOf(connectionNames);
+    }
+
+    private Connection newConnection(String name) throws IOException {
+        connections.incrementAndGet();
+        connectionNames.add(name);
+        Object socket = new Object();
+        Connection connection = mock(Connection.class, withSettings().stubOnly());
+        when(connection.isOpen()).thenReturn(true);
+        when(connection.createChannel()).thenAnswer(inv -> newChannel(socket));
+        return connection;
+    }
+
+    private Channel newChannel(Object socket) throws IOException {
+        Channel channel = mock(Channel.class, withSettings().stubOnly());
+        AtomicLong nextSeq = new AtomicLong(1);
+        ConfirmListener[] listener = new ConfirmListener[1];
+        when(channel.isOpen()).thenReturn(true);
+        when(channel.getNextPublishSeqNo()).thenAnswer(inv -> nextSeq.get());
+        doAnswer(inv -> {
+            listener[0] = inv.getArgument(0);
+            return null;
+        }).when(channel).addConfirmListener(any(ConfirmListener.class));
+        doAnswer(inv -> {
+            if (writeCostNanos > 0) {
+                // socket write: blocks (not spins) so the model also holds on few-core machines
+                synchronized (socket) {
+                    LockSupport.parkNanos(writeCostNanos);
+                }
+            }
+            long seq = nextSeq.getAndIncrement();
+            published.incrementAndGet();
+            if (confirmLatencyMicros == NEVER_CONFIRM) return null;
+            acker.schedule(() -> {
+                try {
+                    listener[0].handleAck(seq, false);
+                } catch (IOException ignored) {
+                }
+            }, confirmLatencyMicros, TimeUnit.MICROSECONDS);
+            return null;
+        }).when(channel).basicPublish(anyString(), anyString(), anyBoolean(), any(), any());
+        return channel;
+    }
+
+    @Override
+    public void close() {
+        acker.shutdownNow();
+    }
+}
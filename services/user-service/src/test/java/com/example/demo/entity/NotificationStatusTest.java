@@ -0,0 +1,62 @@
+package com.example.demo.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationStatusTest {
+
+    @Test
+    void transitionsOnlyMoveForward() {
+        assertThat(NotificationStatus.QUEUED.canTransitionTo(NotificationStatus.SENDING)).isTrue();
+        assertThat(NotificationStatus.SENDING.canTransitionTo(NotificationStatus.DELIVERED)).isTrue();
+        assertThat(NotificationStatus.SENDING.canTransitionTo(NotificationStatus.PENDING)).isFalse();
+        assertThat(NotificationStatus.SENDING.canTransitionTo(NotificationStatus.SENDING)).isFalse();
+    }
+
+    @Test
+    void sentSitsBetweenSendingAndTheOutcome() {
+        assertThat(NotificationStatus.SENDING.canTransitionTo(NotificationStatus.SENT)).isTrue();
+        assertThat(NotificationStatus.SENT.canTransitionTo(NotificationStatus.DELIVERED)).isTrue();
+        assertThat(NotificationStatus.SENT.canTransitionTo(NotificationStatus.BOUNCED)).isTrue();
+        assertThat(NotificationStatus.SENT.canTransitionTo(NotificationStatus.FAILED)).isTrue();
+        assertThat(NotificationStatus.SENT.canTransitionTo(NotificationStatus.SENDING)).isFalse();
+    }
+
+    @Test
+    void failedCanBeRetriedButDeliveredAndBouncedAreFinal() {
+        assertThat(NotificationStatus.FAILED.canTransitionTo(NotificationStatus.PENDING)).isTrue();
+        assertThat(NotificationStatus.FAILED.canTransitionTo(NotificationStatus.FAILED)).isTrue();
+        assertThat(NotificationStatus.FAILED.canTransitionTo(NotificationStatus.QUEUED)).isFalse();
+        for (NotificationStatus next : NotificationStatus.values()) {
+            assertThat(NotificationStatus.DELIVERED.canTransitionTo(next)).isFalse();
+            assertThat(NotificationStatus.BOUNCED.canTransitionTo(next)).isFalse();
+        }
+    }
+
+    @Test
+    void parsesWireValues() {
+        assertThat(NotificationStatus.fromValue("Delivered")).isEqualTo(NotificationStatus.DELIVERED);
+        assertThat(NotificationStatus.fromValue("unknown")).isNull();
+        assertThat(NotificationStatus.fromValue(null)).isNull();
+    }
+
+    @Test
+    void parsesEveryStatusTheEmailWorkerReports() {
+        // email-service app/schemas/email.py EmailStatus
+        assertThat(Stream.of("pending", "sending", "sent", "delivered", "failed", "bounced").map(NotificationStatus::fromValue))
+                .containsExactly(NotificationStatus.PENDING, NotificationStatus.SENDING, NotificationStatus.SENT,
+                        NotificationStatus.DELIVERED, NotificationStatus.FAILED, NotificationStatus.BOUNCED);
+    }
+
+    @Test
+    void codesAreUnique() {
+        assertThat(Stream.of(NotificationStatus.values()).map(NotificationStatus::getCode).distinct())
+                .hasSize(NotificationStatus.values().length);
+        for (NotificationStatus s : NotificationStatus.values()) {
+            assertThat(NotificationStatus.fromCode(s.getCode())).isEqualTo(s);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void versionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        long millis = id.getMostSignificantBits() >>> 16;
+        // a counter overflow may borrow a few milliseconds ahead
+        assertThat(millis).isBetween(before, after + 10);
+    }
+
+    @Test
+    void monotonicPerThreadAndUniqueAcrossThreads() throws Exception {
+        int threads = 4;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Set<UUID> all = ConcurrentHashMap.newKeySet();
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    UUID prev = UuidV7Generator.next();
+                    boolean ordered = true;
+                    for (int i = 0; i < perThread; i++) {
+                        UUID id = UuidV7Generator.next();
+                        // time and counter sit in the most significant bits, unsigned order = creation order
+                        ordered &= Long.compareUnsigned(id.getMostSignificantBits(), prev.getMostSignificantBits()) > 0;
+                        all.add(id);
+                        prev = id;
+                    }
+                    return ordered;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(all).hasSize(threads * perThread);
+    }
+}
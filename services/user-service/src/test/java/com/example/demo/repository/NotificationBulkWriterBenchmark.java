@@ -0,0 +1,76 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.NotificationType;
+import com.example.demo.entity.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// needs the Postgres from application.properties:
+// mvn test -Dtest=NotificationBulkWriterBenchmark -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NotificationBulkWriterBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int SAVE_ALL_ROWS = 20_000;
+
+    @Autowired
+    private NotificationBulkWriter bulkWriter;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void copyVersusSaveAll() {
+        String prefix = "bench-" + UUID.randomUUID() + "-";
+        try {
+            List<NotificationEntity> rows = rows(prefix + "copy-", ROWS, true);
+            long start = System.nanoTime();
+            Set<UUID> inserted = transactionTemplate.execute(status -> bulkWriter.write(rows, null));
+            report("copy", ROWS, System.nanoTime() - start);
+            assertThat(inserted).hasSize(ROWS);
+
+            List<NotificationEntity> entities = rows(prefix + "jpa-", SAVE_ALL_ROWS, false);
+            start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> notificationRepository.saveAll(entities));
+            report("saveAll", SAVE_ALL_ROWS, System.nanoTime() - start);
+        } finally {
+            jdbcTemplate.update("DELETE FROM notifications WHERE request_id LIKE ?", prefix + "%");
+        }
+    }
+
+    private static List<NotificationEntity> rows(String prefix, int count, boolean withIds) {
+        List<NotificationEntity> rows = new ArrayList<>(count);
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int i = 0; i < count; i++) {
+            rows.add(new NotificationEntity(withIds ? UuidV7Generator.next() : null, prefix + i, userId, NotificationType.EMAIL, "welcome",
+                    "{\"name\":\"Ada, \\\"the\\\" first\",\"n\":" + i + "}", NotificationStatus.QUEUED, 0, null, "{}", now, now));
+        }
+        return rows;
+    }
+
+    private static void report(String label, int rows, long nanos) {
+        System.out.printf("%-8s %8d rows %10.0f rows/s%n", label, rows, rows / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.repository;
+
+import com.example.demo.PostgresTestSupport;
+import com.example.demo.entity.NotificationEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationBulkWriterTest extends PostgresTestSupport {
+
+    @Autowired
+    private NotificationBulkWriter bulkWriter;
+
+    @Test
+    void copyKeepsCsvSpecialCharactersVerbatim() {
+        String requestId = prefix + "a,\"b\"\nc\\N";
+        String variables = "{\"name\": \"Ada, \\\"the\\\" first\\nline\", \"path\": \"C:\\\\tmp\", \"emoji\": \"\u00e9\u2713\"}";
+        String payload = "{\"text\": \"quote \\\" comma , newline \\n\", \"list\": [1, \"2\"]}";
+        NotificationEntity n = notification();
+        n.setRequestId(requestId);
+        n.setTemplateCode("");
+        n.setVariables(variables);
+        n.setMetadata(null);
+
+        Set<UUID> inserted = bulkWriter.write(List.of(n), List.of(event(payload)));
+
+        assertThat(inserted).containsExactly(n.getNotificationId());
+        Map<String, Object> row = jdbcTemplate.queryForMap("""
+                SELECT request_id, template_code, metadata IS NULL AS no_metadata, variables = ?::jsonb AS same_variables
+                FROM notifications WHERE notification_id = ?
+                """, variables, n.getNotificationId());
+        assertThat(row).containsEntry("request_id", requestId)
+                .containsEntry("template_code", "")
+                .containsEntry("no_metadata", true)
+                .containsEntry("same_variables", true);
+        assertThat(jdbcTemplate.queryForObject("SELECT payload = ?::jsonb FROM notification_outbox WHERE notification_id = ?",
+                Boolean.class, payload, n.getNotificationId())).isTrue();
+    }
+
+    @Test
+    void copySkipsExistingRequestIds() {
+        NotificationEntity existing = notification();
+        bulkWriter.write(List.of(existing), List.of(event()));
+
+        NotificationEntity retry = notification();
+        retry.setRequestId(existing.getRequestId());
+        NotificationEntity fresh = notification();
+        Set<UUID> inserted = bulkWriter.write(List.of(retry, fresh), List.of(event(), event()));
+
+        assertThat(inserted).containsExactly(fresh.getNotificationId());
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM notification_outbox WHERE notification_id = ?",
+                Integer.class, retry.getNotificationId())).isZero();
+    }
+}
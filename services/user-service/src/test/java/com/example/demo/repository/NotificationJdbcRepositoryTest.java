@@ -0,0 +1,130 @@
+package com.example.demo.repository;
+
+import com.example.demo.PostgresTestSupport;
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.repository.NotificationJdbcRepository.StatusOutcome;
+import com.example.demo.repository.NotificationJdbcRepository.StatusUpdate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationJdbcRepositoryTest extends PostgresTestSupport {
+
+    @Autowired
+    private NotificationJdbcRepository repository;
+
+    @Test
+    void insertSkipsExistingRequestIdsTogetherWithTheirOutboxRows() {
+        NotificationEntity existing = notification();
+        repository.insertWithOutbox(List.of(existing), List.of(event()));
+
+        NotificationEntity retry = notification();
+        retry.setRequestId(existing.getRequestId());
+        NotificationEntity fresh = notification();
+        NotificationEntity sameInBatch = notification();
+        sameInBatch.setRequestId(fresh.getRequestId());
+
+        Set<UUID> inserted = repository.insertWithOutbox(List.of(retry, fresh, sameInBatch), List.of(event(), event(), event()));
+
+        assertThat(inserted).containsExactly(fresh.getNotificationId());
+        assertThat(outboxRows(retry.getNotificationId())).isZero();
+        assertThat(outboxRows(fresh.getNotificationId())).isEqualTo(1);
+        assertThat(repository.findIdsByRequestIds(List.of(existing.getRequestId(), fresh.getRequestId(), prefix + "missing")))
+                .isEqualTo(Map.of(existing.getRequestId(), existing.getNotificationId(), fresh.getRequestId(), fresh.getNotificationId()));
+    }
+
+    @Test
+    void batchUpdateReportsOneOutcomePerItem() {
+        UUID sending = insert(NotificationStatus.SENDING);
+        UUID delivered = insert(NotificationStatus.DELIVERED);
+        UUID twice = insert(NotificationStatus.QUEUED);
+        UUID missing = UUID.randomUUID();
+
+        List<StatusOutcome> outcomes = repository.updateStatuses(List.of(
+                new StatusUpdate(sending, NotificationStatus.SENT, null, 0),
+                new StatusUpdate(delivered, NotificationStatus.DELIVERED, null, 0),
+                new StatusUpdate(delivered, NotificationStatus.SENDING, null, 0),
+                new StatusUpdate(twice, NotificationStatus.PENDING, null, 0),
+                new StatusUpdate(twice, NotificationStatus.FAILED, "smtp 550", 1),
+                new StatusUpdate(missing, NotificationStatus.SENT, null, 0)));
+
+        assertThat(outcomes).containsExactly(StatusOutcome.UPDATED, StatusOutcome.SUPERSEDED, StatusOutcome.REJECTED,
+                StatusOutcome.SUPERSEDED, StatusOutcome.UPDATED, StatusOutcome.NOT_FOUND);
+        assertThat(status(sending)).isEqualTo(NotificationStatus.SENT);
+        assertThat(status(delivered)).isEqualTo(NotificationStatus.DELIVERED);
+        assertThat(status(twice)).isEqualTo(NotificationStatus.FAILED);
+        assertThat(row(twice)).containsEntry("attempts", 1)
+                .containsEntry("last_error", "smtp 550");
+    }
+
+    @Test
+    void repeatedFinalStatusIsUnchangedAndLongErrorsAreCut() {
+        UUID delivered = insert(NotificationStatus.DELIVERED);
+        UUID sending = insert(NotificationStatus.SENDING);
+
+        assertThat(repository.updateStatus(delivered, NotificationStatus.DELIVERED, null)).isEqualTo(StatusOutcome.UNCHANGED);
+        assertThat(repository.updateStatus(sending, NotificationStatus.FAILED, "x".repeat(1000))).isEqualTo(StatusOutcome.UPDATED);
+        assertThat((String) row(sending).get("last_error")).hasSize(NotificationJdbcRepository.MAX_ERROR_LENGTH);
+    }
+
+    @Test
+    void guardAllowsExactlyTheTransitionsOfNotificationStatus() {
+        List<StatusUpdate> updates = new ArrayList<>();
+        List<StatusOutcome> expected = new ArrayList<>();
+        for (NotificationStatus from : NotificationStatus.values()) {
+            for (NotificationStatus to : NotificationStatus.values()) {
+                updates.add(new StatusUpdate(insert(from), to, null, 0));
+                expected.add(from.canTransitionTo(to) ? StatusOutcome.UPDATED
+                        : from.isFinal() && from == to ? StatusOutcome.UNCHANGED
+                        : StatusOutcome.REJECTED);
+            }
+        }
+
+        assertThat(repository.updateStatuses(updates)).containsExactlyElementsOf(expected);
+        for (int i = 0; i < updates.size(); i++) {
+            StatusUpdate u = updates.get(i);
+            if (expected.get(i) == StatusOutcome.UPDATED) assertThat(status(u.notificationId())).isEqualTo(u.status());
+        }
+    }
+
+    @Test
+    void mergedRetryMayPassThroughFailed() {
+        UUID retried = insert(NotificationStatus.SENDING);
+        UUID stale = insert(NotificationStatus.SENDING);
+
+        // sending -> failed -> pending folded into one update, against a plain sending -> pending
+        assertThat(repository.updateStatuses(List.of(
+                new StatusUpdate(retried, NotificationStatus.PENDING, "timeout", 1),
+                new StatusUpdate(stale, NotificationStatus.PENDING, null, 0))))
+                .containsExactly(StatusOutcome.UPDATED, StatusOutcome.REJECTED);
+        assertThat(row(retried)).containsEntry("attempts", 1);
+    }
+
+    @Test
+    void rowWithoutStatusIsRejectedNotMissing() {
+        UUID id = insert(NotificationStatus.QUEUED);
+        jdbcTemplate.update("UPDATE notifications SET status = NULL WHERE notification_id = ?", id);
+
+        assertThat(repository.updateStatus(id, NotificationStatus.SENDING, null)).isEqualTo(StatusOutcome.REJECTED);
+    }
+
+    private UUID insert(NotificationStatus status) {
+        return insert(repository, status);
+    }
+
+    private Map<String, Object> row(UUID notificationId) {
+        return jdbcTemplate.queryForMap("SELECT attempts, last_error FROM notifications WHERE notification_id = ?", notificationId);
+    }
+
+    private int outboxRows(UUID notificationId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM notification_outbox WHERE notification_id = ?", Integer.class, notificationId);
+    }
+}
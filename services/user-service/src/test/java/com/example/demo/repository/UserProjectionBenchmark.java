@@ -0,0 +1,86 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.PreferenceSnapshot;
+import com.example.demo.entity.NotificationPreference;
+import com.example.demo.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// needs the Postgres from application.properties:
+// mvn test -Dtest=UserProjectionBenchmark -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserProjectionBenchmark {
+
+    private static final int USERS = 200;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void entityLoadVersusProjection() {
+        List<UUID> ids = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("bench-" + UUID.randomUUID() + "@example.com");
+            user.setPassword("secret");
+            NotificationPreference pref = new NotificationPreference(null, true, false, "en", user);
+            user.setPreference(pref);
+            ids.add(userRepository.save(user).getId());
+        }
+        try {
+            // warm up both paths (JIT, statement cache)
+            run(ids, this::loadEntity);
+            run(ids, this::loadProjection);
+
+            report("entity", run(ids, this::loadEntity));
+            report("projection", run(ids, this::loadProjection));
+        } finally {
+            userRepository.deleteAllById(ids);
+        }
+    }
+
+    // what createNotification did before: hydrate User, then touch the preference
+    private void loadEntity(UUID id) {
+        User user = userRepository.findById(id).orElseThrow();
+        assertThat(user.getPreference().getEmailEnabled()).isTrue();
+    }
+
+    private void loadProjection(UUID id) {
+        PreferenceSnapshot snapshot = userRepository.findPreferenceSnapshotById(id).orElseThrow();
+        assertThat(snapshot.emailEnabled()).isTrue();
+    }
+
+    // each lookup in its own transaction, so the persistence context never serves a repeat
+    private long[] run(List<UUID> ids, Consumer<UUID> lookup) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (UUID id : ids) {
+                transactionTemplate.executeWithoutResult(status -> lookup.accept(id));
+            }
+        }
+        long lookups = (long) ROUNDS * ids.size();
+        return new long[]{(System.nanoTime() - start) / lookups, (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / lookups};
+    }
+
+    private static void report(String label, long[] result) {
+        System.out.printf("%-12s %8.1f us/lookup %10d bytes/lookup%n", label, result[0] / 1e3, result[1]);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControllerTest {
+
+    private final OutboxRelay relay = mock(OutboxRelay.class);
+    private final AdmissionController admission = new AdmissionController(
+            mock(DataSource.class), relay, new SimpleMeterRegistry(), 200, 20, 10_000, 1_000);
+
+    @Test
+    void shedsLoadWhileTheRelayTrailsAReachableBroker() {
+        when(relay.getLagMillis()).thenReturn(15_000L);
+
+        try (AdmissionController.Admission a = admission.admit()) {
+            assertThat(a.isAdmitted()).isFalse();
+            assertThat(a.getRejectReason()).isEqualTo("publish_lag");
+            assertThat(a.getRetryAfterSeconds()).isEqualTo(15);
+        }
+    }
+
+    @Test
+    void keepsAcceptingIntoTheOutboxDuringABrokerOutage() {
+        when(relay.getLagMillis()).thenReturn(120_000L);
+        when(relay.isBrokerDown()).thenReturn(true);
+
+        try (AdmissionController.Admission a = admission.admit()) {
+            assertThat(a.isAdmitted()).isTrue();
+        }
+    }
+
+    @Test
+    void refusesOnceTheOutboxIsFull() {
+        when(relay.isBrokerDown()).thenReturn(true);
+        when(relay.getOutboxRows()).thenReturn(1_000L);
+
+        try (AdmissionController.Admission a = admission.admit()) {
+            assertThat(a.getRejectReason()).isEqualTo("outbox_full");
+        }
+    }
+}
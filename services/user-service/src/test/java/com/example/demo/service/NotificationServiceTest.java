@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import com.example.demo.PostgresTestSupport;
+import com.example.demo.config.RabbitMQConfig;
+import com.example.demo.dto.NotificationRequestDTO;
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.NotificationPreference;
+import com.example.demo.entity.User;
+import com.example.demo.repository.NotificationJdbcRepository;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationServiceTest extends PostgresTestSupport {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationJdbcRepository jdbcRepository;
+
+    @Autowired
+    private RequestIdBloomFilter requestIdFilter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UUID userId;
+
+    @BeforeEach
+    void createUser() {
+        User user = new User();
+        user.setEmail(requestId() + "@example.com");
+        user.setPassword("secret");
+        user.setPreference(new NotificationPreference(null, true, true, "en", user));
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void removeUser() {
+        jdbcTemplate.update("DELETE FROM notification_preferences WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void smallBatchAnswersRequestIdsInsertedElsewhereAsAlreadyQueued() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!requestIdFilter.isReady() && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        // an id the filter rules out, so the service skips the lookup and only ON CONFLICT catches it
+        String raced;
+        do {
+            raced = requestId();
+        } while (requestIdFilter.mightContain(raced));
+        NotificationEntity other = notification();
+        other.setRequestId(raced);
+        other.setUserId(userId);
+        jdbcRepository.insertWithOutbox(List.of(other), List.of(event()));
+
+        List<Map<String, Object>> results = notificationService.createNotifications(
+                List.of(request(raced), request(requestId())));
+
+        assertThat(results.get(0)).containsEntry("success", true)
+                .containsEntry("message", "already_queued")
+                .containsEntry("notification_id", other.getNotificationId());
+        assertThat(results.get(1)).containsEntry("success", true)
+                .containsEntry("message", "notification_queued");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM notifications WHERE request_id = ?", Integer.class, raced)).isEqualTo(1);
+    }
+
+    @Test
+    void messageCarriesThePriorityItIsPublishedWith() throws Exception {
+        NotificationRequestDTO urgent = request(requestId());
+        urgent.setPriority(99);
+
+        JsonNode message = objectMapper.readTree(notificationService.toMessageJson(UUID.randomUUID(), urgent));
+
+        // notification_job_v1.json: 0..10, the same clamp as the AMQP priority
+        assertThat(message.get("priority").asInt()).isEqualTo(RabbitMQConfig.MAX_PRIORITY);
+    }
+
+    private NotificationRequestDTO request(String requestId) {
+        return new NotificationRequestDTO("email", userId, "welcome", Map.of("name", "Ada"), requestId, null, null);
+    }
+}
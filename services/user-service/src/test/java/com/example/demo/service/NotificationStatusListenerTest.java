@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RabbitMQConfig;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.repository.NotificationJdbcRepository.StatusOutcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationStatusListenerTest {
+
+    private final StatusUpdateCoalescer coalescer = mock(StatusUpdateCoalescer.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final Channel channel = mock(Channel.class);
+    private final NotificationStatusListener listener = new NotificationStatusListener(
+            coalescer, new ObjectMapper().findAndRegisterModules(), rabbitTemplate, new SimpleMeterRegistry(), 1000, 1000);
+
+    @Test
+    void deadLettersThePoisonReceiptAndAcksTheBatch() throws Exception {
+        UUID good = UUID.randomUUID();
+        UUID poison = UUID.randomUUID();
+        when(coalescer.submit(eq(good), any(), any())).thenReturn(CompletableFuture.completedFuture(StatusOutcome.UPDATED));
+        when(coalescer.submit(eq(poison), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new DataIntegrityViolationException("bad row")));
+        brokerConfirms(true);
+
+        listener.onReceipts(List.of(receipt(good, 1), receipt(poison, 2), receipt(good, 3)), channel);
+
+        ArgumentCaptor<Message> deadLettered = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.EXCHANGE), eq(RabbitMQConfig.FAILED_ROUTING_KEY), deadLettered.capture(), any(CorrelationData.class));
+        assertThat(new String(deadLettered.getValue().getBody(), StandardCharsets.UTF_8)).contains(poison.toString());
+        assertThat((String) deadLettered.getValue().getMessageProperties().getHeader(NotificationStatusListener.ERROR_HEADER))
+                .isEqualTo("bad row");
+        verify(channel).basicAck(3, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void requeuesTheBatchWhileTheDatabaseIsUnavailable() throws Exception {
+        when(coalescer.submit(any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new QueryTimeoutException("statement timeout")));
+
+        listener.onReceipts(List.of(receipt(UUID.randomUUID(), 1), receipt(UUID.randomUUID(), 2)), channel);
+
+        verify(channel).basicNack(2, true, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void requeuesTheBatchWhenTheBrokerNacksTheDeadLetter() throws Exception {
+        when(coalescer.submit(any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new DataIntegrityViolationException("bad row")));
+        brokerConfirms(false);
+
+        listener.onReceipts(List.of(receipt(UUID.randomUUID(), 1)), channel);
+
+        verify(channel).basicNack(1, true, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void appliesTheEmailWorkersReceiptAsPublished() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(coalescer.submit(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(StatusOutcome.UPDATED));
+        // what email-service queue_service.publish_status_update sends after a successful send
+        String routingKey = "status." + "SENT".toLowerCase();
+        String body = "{\"notification_id\": \"" + id + "\", \"status\": \"SENT\", \"timestamp\": null, \"metadata\": {\"provider\": \"smtp\"}}";
+        MessageProperties properties = new MessageProperties();
+        properties.setReceivedExchange(RabbitMQConfig.EXCHANGE);
+        properties.setReceivedRoutingKey(routingKey);
+        properties.setDeliveryTag(7);
+
+        listener.onReceipts(List.of(new Message(body.getBytes(StandardCharsets.UTF_8), properties)), channel);
+
+        verify(coalescer).submit(id, NotificationStatus.SENT, null);
+        verify(channel).basicAck(7, true);
+        assertThat(new RabbitMQConfig().statusBindings().getDeclarablesByType(Binding.class))
+                .anyMatch(b -> b.getExchange().equals(RabbitMQConfig.EXCHANGE)
+                        && b.getRoutingKey().equals(routingKey)
+                        && b.getDestination().equals(RabbitMQConfig.STATUS_QUEUE));
+    }
+
+    private void brokerConfirms(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "queue full"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static Message receipt(UUID notificationId, long deliveryTag) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        String body = "{\"notification_id\":\"" + notificationId + "\",\"status\":\"" + NotificationStatus.SENT.getValue() + "\"}";
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
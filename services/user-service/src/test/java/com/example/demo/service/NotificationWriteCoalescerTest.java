@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import com.example.demo.PostgresTestSupport;
+import com.example.demo.entity.NotificationEntity;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.repository.NotificationJdbcRepository;
+import com.example.demo.service.NotificationWriteCoalescer.WriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationWriteCoalescerTest extends PostgresTestSupport {
+
+    @Test
+    void oneBadRowFailsOnlyItsOwnCaller() throws Exception {
+        CountDownLatch firstFlushStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstFlush = new CountDownLatch(1);
+        AtomicInteger statements = new AtomicInteger();
+        NotificationJdbcRepository repository = new NotificationJdbcRepository(jdbcTemplate) {
+            @Override
+            public Set<UUID> insertWithOutbox(List<NotificationEntity> notifications, List<OutboxEvent> events) {
+                if (statements.getAndIncrement() == 0) {
+                    firstFlushStarted.countDown();
+                    await(releaseFirstFlush);
+                }
+                return super.insertWithOutbox(notifications, events);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NotificationWriteCoalescer coalescer = new NotificationWriteCoalescer(repository, registry, true, 200, 50);
+        try {
+            // hold the flusher in its first statement so the next five callers end up in one batch
+            CompletableFuture<WriteResult> first = CompletableFuture.supplyAsync(() -> coalescer.write(notification("{}"), event()));
+            assertThat(firstFlushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            List<CompletableFuture<WriteResult>> rest = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                String variables = i == 2 ? "{not json" : "{}";
+                rest.add(CompletableFuture.supplyAsync(() -> coalescer.write(notification(variables), event())));
+            }
+            while (registry.get("notification.coalescer.queued").gauge().value() < 5) Thread.sleep(5);
+            releaseFirstFlush.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).created()).isTrue();
+            for (int i = 0; i < 5; i++) {
+                CompletableFuture<WriteResult> result = rest.get(i);
+                if (i == 2) {
+                    assertThat(result).failsWithin(5, TimeUnit.SECONDS);
+                } else {
+                    WriteResult written = result.get(5, TimeUnit.SECONDS);
+                    assertThat(written.created()).isTrue();
+                    assertThat(count(written.notificationId())).isEqualTo(1);
+                }
+            }
+            // first flush, the failed batch of five, then each of the five on its own
+            assertThat(statements.get()).isEqualTo(7);
+        } finally {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void duplicateRequestIdGetsTheExistingNotification() throws Exception {
+        NotificationJdbcRepository repository = new NotificationJdbcRepository(jdbcTemplate);
+        NotificationWriteCoalescer coalescer = new NotificationWriteCoalescer(repository, new SimpleMeterRegistry(), true, 200, 50);
+        try {
+            String requestId = requestId();
+            NotificationEntity original = notification("{}");
+            original.setRequestId(requestId);
+            NotificationEntity retry = notification("{}");
+            retry.setRequestId(requestId);
+
+            WriteResult created = coalescer.write(original, event());
+            WriteResult again = coalescer.write(retry, event());
+
+            assertThat(created).isEqualTo(new WriteResult(original.getNotificationId(), true));
+            assertThat(again).isEqualTo(new WriteResult(original.getNotificationId(), false));
+            assertThat(count(retry.getNotificationId())).isZero();
+        } finally {
+            coalescer.shutdown();
+        }
+    }
+
+    private int count(UUID notificationId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM notifications WHERE notification_id = ?", Integer.class, notificationId);
+    }
+
+    private NotificationEntity notification(String variables) {
+        NotificationEntity n = notification();
+        n.setVariables(variables);
+        n.setStatus(NotificationStatus.QUEUED);
+        return n;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestIdBloomFilterTest {
+
+    private final NotificationRepository repository = mock(NotificationRepository.class);
+
+    @Test
+    void reportsEveryIdAsPresentUntilTheRebuildFinishes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.streamRequestIds()).thenAnswer(inv -> Stream.of("loaded").peek(id -> await(release)));
+        RequestIdBloomFilter filter = filter(1000);
+
+        assertThat(filter.mightContain("never-added")).isTrue();
+        filter.rebuild();
+        assertThat(filter.mightContain("never-added")).isTrue();
+
+        release.countDown();
+        awaitReady(filter);
+        assertThat(filter.mightContain("loaded")).isTrue();
+        assertThat(filter.mightContain("never-added")).isFalse();
+    }
+
+    @Test
+    void growsWithoutFalseNegativesAndKeepsTheErrorRate() throws Exception {
+        when(repository.streamRequestIds()).thenReturn(Stream.empty());
+        RequestIdBloomFilter filter = filter(1000);
+        filter.rebuild();
+        awaitReady(filter);
+        long initialBytes = filter.memoryBytes();
+
+        IntStream.range(0, 20_000).forEach(i -> filter.add("req-" + i));
+
+        assertThat(filter.size()).isEqualTo(20_000);
+        assertThat(filter.memoryBytes()).isGreaterThan(initialBytes * 8);
+        assertThat(IntStream.range(0, 20_000).allMatch(i -> filter.mightContain("req-" + i))).isTrue();
+        long falsePositives = IntStream.range(0, 20_000).filter(i -> filter.mightContain("other-" + i)).count();
+        assertThat(falsePositives).isLessThan(200); // fpp 0.01
+        assertThat(filter.falsePositiveRate()).isLessThan(0.01);
+    }
+
+    private RequestIdBloomFilter filter(long initialCapacity) {
+        return new RequestIdBloomFilter(repository, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), initialCapacity, 0.01);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitReady(RequestIdBloomFilter filter) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!filter.isReady() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertThat(filter.isReady()).isTrue();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// transactions run on the Postgres from application.properties, like the context test
+@SpringBootTest
+class RequestIdCacheTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void putAfterCommitCachesOnlyCommittedRows() {
+        RequestIdCache cache = new RequestIdCache(100, 300, new SimpleMeterRegistry());
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        UUID committed = UUID.randomUUID();
+        UUID rolledBack = UUID.randomUUID();
+
+        tx.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            cache.putAfterCommit("committed", committed);
+            assertThat(cache.get("committed")).isNull();
+        });
+        tx.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            cache.putAfterCommit("rolled-back", rolledBack);
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache.get("committed")).isEqualTo(committed);
+        assertThat(cache.get("rolled-back")).isNull();
+    }
+
+    @Test
+    void entriesExpireAndTheSizeStaysBounded() {
+        RequestIdCache expired = new RequestIdCache(100, 0, new SimpleMeterRegistry());
+        expired.put("gone", UUID.randomUUID());
+        assertThat(expired.get("gone")).isNull();
+
+        RequestIdCache bounded = new RequestIdCache(10, 300, new SimpleMeterRegistry());
+        UUID hot = UUID.randomUUID();
+        bounded.put("hot", hot);
+        for (int i = 0; i < 50; i++) {
+            bounded.put("req-" + i, UUID.randomUUID());
+            // read between puts, so it stays the most recently used
+            assertThat(bounded.get("hot")).isEqualTo(hot);
+        }
+        int cached = 0;
+        for (int i = 0; i < 50; i++) {
+            if (bounded.get("req-" + i) != null) cached++;
+        }
+        // the hot entry plus the nine latest puts
+        assertThat(cached).isEqualTo(9);
+        assertThat(bounded.get("req-49")).isNotNull();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import com.example.demo.PostgresTestSupport;
+import com.example.demo.entity.NotificationStatus;
+import com.example.demo.repository.NotificationJdbcRepository;
+import com.example.demo.repository.NotificationJdbcRepository.StatusOutcome;
+import com.example.demo.repository.NotificationJdbcRepository.StatusUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatusUpdateCoalescerTest extends PostgresTestSupport {
+
+    @Test
+    void burstBecomesOneUpdateAndStaleReportsAreSuperseded() throws Exception {
+        NotificationJdbcRepository repository = new NotificationJdbcRepository(jdbcTemplate);
+        UUID id = insert(repository, NotificationStatus.QUEUED);
+        // the window never elapses here: shutdown() does the flush
+        StatusUpdateCoalescer coalescer = coalescer(repository);
+
+        CompletableFuture<StatusOutcome> sending = coalescer.submit(id, NotificationStatus.SENDING, null);
+        CompletableFuture<StatusOutcome> delivered = coalescer.submit(id, NotificationStatus.DELIVERED, null);
+        CompletableFuture<StatusOutcome> lateSent = coalescer.submit(id, NotificationStatus.SENT, null);
+        coalescer.shutdown();
+
+        assertThat(sending.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.SUPERSEDED);
+        assertThat(delivered.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.UPDATED);
+        assertThat(lateSent.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.SUPERSEDED);
+        assertThat(status(id)).isEqualTo(NotificationStatus.DELIVERED);
+    }
+
+    @Test
+    void retryAfterFailureSurvivesTheMerge() throws Exception {
+        NotificationJdbcRepository repository = new NotificationJdbcRepository(jdbcTemplate);
+        UUID id = insert(repository, NotificationStatus.SENDING);
+        StatusUpdateCoalescer coalescer = coalescer(repository);
+
+        CompletableFuture<StatusOutcome> failed = coalescer.submit(id, NotificationStatus.FAILED, "smtp 421");
+        CompletableFuture<StatusOutcome> retry = coalescer.submit(id, NotificationStatus.PENDING, null);
+        coalescer.shutdown();
+
+        assertThat(failed.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.SUPERSEDED);
+        assertThat(retry.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.UPDATED);
+        assertThat(status(id)).isEqualTo(NotificationStatus.PENDING);
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM notifications WHERE notification_id = ?", Integer.class, id)).isEqualTo(1);
+    }
+
+    @Test
+    void staleFailureAfterDeliveryIsNotCountedAsAnAttempt() throws Exception {
+        NotificationJdbcRepository repository = new NotificationJdbcRepository(jdbcTemplate);
+        UUID id = insert(repository, NotificationStatus.SENDING);
+        StatusUpdateCoalescer coalescer = coalescer(repository);
+
+        CompletableFuture<StatusOutcome> delivered = coalescer.submit(id, NotificationStatus.DELIVERED, null);
+        CompletableFuture<StatusOutcome> lateFailed = coalescer.submit(id, NotificationStatus.FAILED, "smtp 421");
+        coalescer.shutdown();
+
+        assertThat(delivered.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.UPDATED);
+        assertThat(lateFailed.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.SUPERSEDED);
+        assertThat(status(id)).isEqualTo(NotificationStatus.DELIVERED);
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM notifications WHERE notification_id = ?", Integer.class, id)).isZero();
+    }
+
+    @Test
+    void failedFlushIsRetriedPerUpdate() throws Exception {
+        AtomicInteger statements = new AtomicInteger();
+        NotificationJdbcRepository repository = new NotificationJdbcRepository(jdbcTemplate) {
+            @Override
+            public List<StatusOutcome> updateStatuses(List<StatusUpdate> updates) {
+                statements.incrementAndGet();
+                if (updates.size() > 1) throw new DataIntegrityViolationException("poison row in batch");
+                return super.updateStatuses(updates);
+            }
+        };
+        UUID first = insert(repository, NotificationStatus.SENDING);
+        UUID second = insert(repository, NotificationStatus.SENDING);
+        StatusUpdateCoalescer coalescer = coalescer(repository);
+
+        CompletableFuture<StatusOutcome> a = coalescer.submit(first, NotificationStatus.SENT, null);
+        CompletableFuture<StatusOutcome> b = coalescer.submit(second, NotificationStatus.DELIVERED, null);
+        coalescer.shutdown();
+
+        assertThat(a.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.UPDATED);
+        assertThat(b.get(5, TimeUnit.SECONDS)).isEqualTo(StatusOutcome.UPDATED);
+        assertThat(statements.get()).isEqualTo(3);
+        assertThat(status(first)).isEqualTo(NotificationStatus.SENT);
+        assertThat(status(second)).isEqualTo(NotificationStatus.DELIVERED);
+    }
+
+    private static StatusUpdateCoalescer coalescer(NotificationJdbcRepository repository) {
+        return new StatusUpdateCoalescer(repository, new SimpleMeterRegistry(), TimeUnit.MINUTES.toMillis(1), 5000, 4);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// concurrency ceiling of thread-per-request (Tomcat's default 200 platform threads) versus virtual threads,
+// for a request that mostly waits on I/O (JDBC insert + broker round trip, simulated with sleep).
+// Needs JDK 21: mvn test -Dtest=ThreadingModeBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadingModeBenchmark {
+
+    private static final int REQUESTS = 20_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final long IO_WAIT_MILLIS = 20;
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "virtual threads need JDK 21");
+
+        report("platform-200", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), false);
+        report("virtual", newVirtualThreadPerTaskExecutor(), false);
+        // same, but the wait happens inside synchronized: the virtual thread pins its carrier
+        report("virtual+sync", newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    private static void report(String label, ExecutorService executor, boolean synchronizedWait) throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        if (synchronizedWait) {
+                            Object monitor = new Object();
+                            synchronized (monitor) {
+                                ioWait();
+                            }
+                        } else {
+                            ioWait();
+                        }
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-14s %8.0f req/s   peak in-flight %6d%n", label, REQUESTS / seconds, peak.get());
+    }
+
+    private static void ioWait() {
+        try {
+            Thread.sleep(IO_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the project still compiles for Java 17
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+}